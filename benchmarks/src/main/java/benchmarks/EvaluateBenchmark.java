@@ -0,0 +1,37 @@
+package benchmarks;
+
+import ChessAlgorithms.EngineCalculations;
+import chess.logic.Board;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+// Static evaluation throughput in evaluated positions per second
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class EvaluateBenchmark {
+    private final EngineCalculations engine = new EngineCalculations();
+    private Board[] boards;
+
+    @Setup
+    public void setup() {
+        boards = new Board[Positions.FENS.length];
+        for (int i = 0; i < boards.length; i++) {
+            boards[i] = new Board(Positions.FENS[i]);
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(6)
+    public int evaluate() {
+        int total = 0;
+        for (Board board : boards) {
+            total += engine.evaluate(board);
+        }
+        return total;
+    }
+}
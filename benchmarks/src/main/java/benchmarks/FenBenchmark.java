@@ -0,0 +1,50 @@
+package benchmarks;
+
+import chess.logic.Board;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+// FEN parse and serialize throughput in positions per second
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class FenBenchmark {
+    private final char[] buffer = new char[Board.MAX_FEN_LENGTH];
+    private Board board;
+    private Board[] boards;
+
+    @Setup
+    public void setup() {
+        board = new Board();
+        boards = new Board[Positions.FENS.length];
+        for (int i = 0; i < boards.length; i++) {
+            boards[i] = new Board(Positions.FENS[i]);
+        }
+    }
+
+    // Bulk loading reuses one board, the way positions are read from the games DB
+    @Benchmark
+    @OperationsPerInvocation(6)
+    public long parse() {
+        long keys = 0;
+        for (String fen : Positions.FENS) {
+            board.setPosition(fen);
+            keys ^= board.getZobristKey();
+        }
+        return keys;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(6)
+    public int serialize() {
+        int length = 0;
+        for (Board position : boards) {
+            length += position.writeFEN(buffer, 0);
+        }
+        return length;
+    }
+}
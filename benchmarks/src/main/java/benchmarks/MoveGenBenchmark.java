@@ -0,0 +1,78 @@
+package benchmarks;
+
+import chess.logic.Board;
+import chess.logic.MoveGenerator;
+import chess.logic.Perft;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Move generator throughput. Every score is in operations per second where one
+ * operation is a node (perft), a generated position (movegen) or a make/unmake pair.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MoveGenBenchmark {
+    private final int[] moves = new int[MoveGenerator.MAX_MOVES];
+    private final Perft perft = new Perft();
+    private Board[] boards;
+    private Board kiwipete;
+    private int[] kiwipeteMoves;
+
+    @Setup
+    public void setup() {
+        boards = new Board[Positions.FENS.length];
+        for (int i = 0; i < boards.length; i++) {
+            boards[i] = new Board(Positions.FENS[i]);
+        }
+
+        kiwipete = new Board(Positions.KIWIPETE);
+        kiwipeteMoves = new int[MoveGenerator.MAX_MOVES];
+        if (MoveGenerator.generateLegal(kiwipete, kiwipeteMoves, 0) != Positions.KIWIPETE_MOVES) {
+            throw new IllegalStateException("Unexpected move count for " + Positions.KIWIPETE);
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(Positions.KIWIPETE_PERFT_3)
+    public long perftNodes() {
+        return perft.perft(kiwipete, 3);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(6)
+    public int generateLegal() {
+        int total = 0;
+        for (Board board : boards) {
+            total += MoveGenerator.generateLegal(board, moves, 0);
+        }
+        return total;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(6)
+    public int generatePseudoLegal() {
+        int total = 0;
+        for (Board board : boards) {
+            total += MoveGenerator.generateAll(board, board.getSideToMove(), moves, 0);
+        }
+        return total;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(Positions.KIWIPETE_MOVES)
+    public long makeUnmake() {
+        long keys = 0;
+        for (int i = 0; i < Positions.KIWIPETE_MOVES; i++) {
+            kiwipete.makeMove(kiwipeteMoves[i]);
+            keys ^= kiwipete.getZobristKey();
+            kiwipete.unmakeMove();
+        }
+        return keys;
+    }
+}
@@ -0,0 +1,50 @@
+package benchmarks;
+
+import ChessAlgorithms.EngineCalculations;
+import ChessAlgorithms.SearchClock;
+import ChessAlgorithms.SearchResult;
+import ChessAlgorithms.TranspositionTable;
+import chess.logic.Board;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Time to reach a fixed depth with Lazy SMP. Dividing the single-thread score by the score
+ * at each thread count gives the speedup curve. The hash table is cleared before every search
+ * so no run profits from the previous one.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class SearchBenchmark {
+    @Param({"1", "2", "4", "8"})
+    private int threads;
+
+    @Param({"6"})
+    private int depth;
+
+    private TranspositionTable table;
+    private EngineCalculations engine;
+    private Board board;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        table = new TranspositionTable(64);
+        engine = new EngineCalculations(table);
+        board = new Board(Positions.FENS[5]);
+    }
+
+    @Setup(Level.Invocation)
+    public void clearTable() {
+        table.clear();
+    }
+
+    @Benchmark
+    public SearchResult timeToDepth() {
+        return engine.search(board, depth, SearchClock.unlimited(), threads);
+    }
+}
@@ -0,0 +1,11 @@
+package API;
+
+/**
+ * Body of POST /api/analysis: the position to analyse and how much to search it.
+ * Every field but fen may be left out. The budget is either a fixed timeMillis or, for
+ * games, the side to move's remainingMillis plus incrementMillis. threads sets how many
+ * cores the search may use; lines how many moves a MultiPV analysis reports.
+ */
+public record AnalysisRequest(String fen, Integer depth, Long timeMillis, Long remainingMillis,
+                              Long incrementMillis, Integer threads, Integer lines) {
+}
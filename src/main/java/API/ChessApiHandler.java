@@ -1,12 +1,267 @@
 package API;
 
+import ChessAlgorithms.EngineCalculations;
+import ChessAlgorithms.OpeningBook;
+import ChessAlgorithms.SearchClock;
+import ChessAlgorithms.SearchMetrics;
+import ChessAlgorithms.SearchResult;
+import ChessAlgorithms.Tablebase;
+import ChessAlgorithms.TranspositionTable;
 import DataHandler.DataHandler;
+import chess.logic.Board;
 import io.javalin.http.*;
 import io.javalin.Javalin;
+import io.javalin.http.sse.SseClient;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Function;
 
 public class ChessApiHandler {
+    private static final Logger logger = LoggerFactory.getLogger(ChessApiHandler.class);
     private static final DataHandler database = new DataHandler();
 
+    private static final int MAX_ANALYSIS_DEPTH = 64;
+    // Every analysis answers within its deadline: 2 s unless asked otherwise, never more than 10 s
+    private static final long DEFAULT_ANALYSIS_MILLIS = 2000;
+    private static final long MAX_ANALYSIS_MILLIS = 10000;
+    private static final int ANALYSIS_HASH_MB = 64;
+    // Lines reported by a MultiPV analysis: each one costs about as much as a single-line search
+    private static final int DEFAULT_ANALYSIS_LINES = 3;
+    private static final int MAX_ANALYSIS_LINES = 10;
+    // Shared by all analysis requests; the table is safe to use from several searches at once
+    private static final TranspositionTable analysisTable = new TranspositionTable(ANALYSIS_HASH_MB);
+    // Engines of finished requests; each keeps its move pickers, pawn table and helpers for the next one
+    private static final Queue<EngineCalculations> idleEngines = new ConcurrentLinkedQueue<>();
+    // Written by OpeningBookCompiler; without it every position is out of book
+    private static final String OPENING_BOOK_FILE = "database/opening-book.bin";
+    private static final OpeningBook openingBook = loadOpeningBook();
+    // Written by TablebaseGenerator; without it endgames are searched like any other position
+    private static final String TABLEBASE_DIRECTORY = "database/tablebases";
+    private static final Tablebase tablebase = loadTablebase();
+
+    /**
+     * Analyse a position: best move, score and principal variation
+     *
+     * @param context The Javalin Context for the HTTP POST Request
+     */
+    public static void analyze(Context context) {
+        AnalysisRequest request = context.bodyAsClass(AnalysisRequest.class);
+        Board board = analysisBoard(request);
+        int depth = analysisDepth(request);
+        SearchClock clock = analysisClock(request);
+
+        int threads = request.threads() == null ? 1 : request.threads();
+        int maxThreads = Runtime.getRuntime().availableProcessors();
+        if (threads < 1 || threads > maxThreads) {
+            throw new BadRequestResponse("Threads must be between 1 and " + maxThreads);
+        }
+
+        EngineCalculations engine = acquireEngine();
+        try {
+            context.json(engine.search(board, depth, clock, threads));
+        } finally {
+            releaseEngine(engine);
+        }
+    }
+
+    /**
+     * Analyse the best few moves of a position in one single-threaded search, each with its score and
+     * principal variation
+     *
+     * @param context The Javalin Context for the HTTP POST Request, with lines set in the body
+     */
+    public static void analyzeLines(Context context) {
+        AnalysisRequest request = context.bodyAsClass(AnalysisRequest.class);
+        Board board = analysisBoard(request);
+        int depth = analysisDepth(request);
+        SearchClock clock = analysisClock(request);
+        int lines = analysisLines(request);
+
+        EngineCalculations engine = acquireEngine();
+        try {
+            context.json(engine.searchMultiPV(board, depth, clock, lines, null));
+        } finally {
+            releaseEngine(engine);
+        }
+    }
+
+    /**
+     * Streams the best lines of a position as server-sent events: a "lines" event after every
+     * completed depth, then a "done" event with the final lines, or an "error" event. Takes the
+     * fields of AnalysisRequest as query parameters, threads excepted.
+     *
+     * @param client The server-sent event client of the HTTP GET Request
+     */
+    public static void streamLines(SseClient client) {
+        Context context = client.ctx();
+        try {
+            AnalysisRequest request = new AnalysisRequest(context.queryParam("fen"),
+                    queryParam(context, "depth", Integer::valueOf), queryParam(context, "timeMillis", Long::valueOf),
+                    queryParam(context, "remainingMillis", Long::valueOf),
+                    queryParam(context, "incrementMillis", Long::valueOf), null,
+                    queryParam(context, "lines", Integer::valueOf));
+            Board board = analysisBoard(request);
+            int depth = analysisDepth(request);
+            SearchClock clock = analysisClock(request);
+            int lines = analysisLines(request);
+
+            EngineCalculations engine = acquireEngine();
+            // Nobody is left to read the lines once the client goes away. The engine goes back to
+            // the pool afterwards, so a client closing later must not stop another request's search.
+            AtomicBoolean searching = new AtomicBoolean(true);
+            client.onClose(() -> {
+                synchronized (searching) {
+                    if (searching.get()) {
+                        engine.stop();
+                    }
+                }
+            });
+            List<SearchResult> result;
+            try {
+                result = engine.searchMultiPV(board, depth, clock, lines, update -> client.sendEvent("lines", update));
+            } finally {
+                synchronized (searching) {
+                    searching.set(false);
+                }
+                releaseEngine(engine);
+            }
+            client.sendEvent("done", result);
+        } catch (BadRequestResponse e) {
+            client.sendEvent("error", e.getMessage());
+        }
+    }
+
+    /**
+     * Book moves of a position with their weights and results, most played first
+     *
+     * @param context The Javalin Context for the HTTP GET Request, with the position in the fen query parameter
+     */
+    public static void book(Context context) {
+        String fen = context.queryParam("fen");
+        if (fen == null) {
+            throw new BadRequestResponse("Missing fen");
+        }
+        Board board;
+        try {
+            board = new Board(fen);
+        } catch (IllegalArgumentException e) {
+            throw new BadRequestResponse(e.getMessage());
+        }
+        context.json(openingBook == null ? List.of() : openingBook.probe(board));
+    }
+
+    // Process-wide search counters and per-depth timings since the server started
+    public static void metrics(Context context) {
+        context.json(SearchMetrics.snapshot());
+    }
+
+    private static OpeningBook loadOpeningBook() {
+        Path path = Paths.get(OPENING_BOOK_FILE);
+        if (!Files.exists(path)) {
+            logger.warn("No opening book at {}", path);
+            return null;
+        }
+        try {
+            return OpeningBook.open(path);
+        } catch (IOException e) {
+            logger.warn("Could not open opening book {}: {}", path, e.getMessage());
+            return null;
+        }
+    }
+
+    private static Tablebase loadTablebase() {
+        Path path = Paths.get(TABLEBASE_DIRECTORY);
+        if (!Files.isDirectory(path)) {
+            logger.warn("No endgame tables at {}", path);
+            return null;
+        }
+        try {
+            Tablebase tables = Tablebase.open(path);
+            logger.info("Loaded {} endgame tables from {}", tables.size(), path);
+            return tables;
+        } catch (IOException e) {
+            logger.warn("Could not open endgame tables {}: {}", path, e.getMessage());
+            return null;
+        }
+    }
+
+    // An idle engine, or a new one when every engine is busy; the pool grows to the number of concurrent requests
+    private static EngineCalculations acquireEngine() {
+        EngineCalculations engine = idleEngines.poll();
+        if (engine == null) {
+            engine = new EngineCalculations(analysisTable);
+            engine.setTablebase(tablebase);
+        }
+        return engine;
+    }
+
+    private static void releaseEngine(EngineCalculations engine) {
+        idleEngines.offer(engine);
+    }
+
+    private static Board analysisBoard(AnalysisRequest request) {
+        if (request.fen() == null) {
+            throw new BadRequestResponse("Missing fen");
+        }
+        try {
+            return new Board(request.fen());
+        } catch (IllegalArgumentException e) {
+            throw new BadRequestResponse(e.getMessage());
+        }
+    }
+
+    private static int analysisDepth(AnalysisRequest request) {
+        int depth = request.depth() == null ? MAX_ANALYSIS_DEPTH : request.depth();
+        if (depth < 1 || depth > MAX_ANALYSIS_DEPTH) {
+            throw new BadRequestResponse("Depth must be between 1 and " + MAX_ANALYSIS_DEPTH);
+        }
+        return depth;
+    }
+
+    private static int analysisLines(AnalysisRequest request) {
+        int lines = request.lines() == null ? DEFAULT_ANALYSIS_LINES : request.lines();
+        if (lines < 1 || lines > MAX_ANALYSIS_LINES) {
+            throw new BadRequestResponse("Lines must be between 1 and " + MAX_ANALYSIS_LINES);
+        }
+        return lines;
+    }
+
+    // An optional query parameter, or null when it is missing
+    private static <T> T queryParam(Context context, String name, Function<String, T> parser) {
+        String value = context.queryParam(name);
+        if (value == null) {
+            return null;
+        }
+        try {
+            return parser.apply(value);
+        } catch (NumberFormatException e) {
+            throw new BadRequestResponse("Invalid " + name + ": " + value);
+        }
+    }
+
+    private static SearchClock analysisClock(AnalysisRequest request) {
+        if (request.remainingMillis() != null) {
+            long increment = request.incrementMillis() == null ? 0 : request.incrementMillis();
+            // A long game clock still gets its own budget, only cut down to the analysis limit
+            return SearchClock.fromGameClock(request.remainingMillis(), increment, 0).capped(MAX_ANALYSIS_MILLIS);
+        }
+
+        long millis = request.timeMillis() == null ? DEFAULT_ANALYSIS_MILLIS : request.timeMillis();
+        if (millis < 1) {
+            throw new BadRequestResponse("Time must be positive");
+        }
+        return SearchClock.fixedTime(Math.min(millis, MAX_ANALYSIS_MILLIS));
+    }
+
     /**
      * Get all quotes
      *
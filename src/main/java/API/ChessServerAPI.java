@@ -29,6 +29,11 @@ public class ChessServerAPI {
                     logger.info("Request: {} {}", ctx.method(), ctx.url());
                 });
 
+        this.server.post("/api/analysis", ChessApiHandler::analyze);
+        this.server.post("/api/analysis/lines", ChessApiHandler::analyzeLines);
+        this.server.sse("/api/analysis/stream", ChessApiHandler::streamLines);
+        this.server.get("/api/book", ChessApiHandler::book);
+        this.server.get("/api/metrics", ChessApiHandler::metrics);
 
 //        this.server.get("/games", context -> ChessApiHandler.getAll(context));
 //        this.server.get("/games/{id}", context -> ChessApiHandler.getOne(context));
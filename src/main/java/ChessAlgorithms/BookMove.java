@@ -0,0 +1,58 @@
+package ChessAlgorithms;
+
+import chess.logic.Move;
+
+/**
+ * One move of an opening book position, with how often it was played and how those games
+ * ended for the side that played it. Getters give the API's JSON shape.
+ */
+public class BookMove {
+    private final int move;
+    private final int weight;
+    private final int wins;
+    private final int draws;
+    private final int losses;
+
+    public BookMove(int move, int weight, int wins, int draws, int losses) {
+        this.move = move;
+        this.weight = weight;
+        this.wins = wins;
+        this.draws = draws;
+        this.losses = losses;
+    }
+
+    public int move() {
+        return move;
+    }
+
+    // Move in "e2-e4" form
+    public String getMove() {
+        return Move.toString(move);
+    }
+
+    // Relative preference among the moves of the position; 0 means never pick it
+    public int getWeight() {
+        return weight;
+    }
+
+    public int getWins() {
+        return wins;
+    }
+
+    public int getDraws() {
+        return draws;
+    }
+
+    public int getLosses() {
+        return losses;
+    }
+
+    public int getGames() {
+        return wins + draws + losses;
+    }
+
+    @Override
+    public String toString() {
+        return getMove() + " weight " + weight + " +" + wins + " =" + draws + " -" + losses;
+    }
+}
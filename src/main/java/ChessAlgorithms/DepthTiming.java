@@ -0,0 +1,7 @@
+package ChessAlgorithms;
+
+/**
+ * Work done by one completed iterative deepening iteration, aspiration re-searches included.
+ */
+public record DepthTiming(int depth, long nodes, long timeMillis) {
+}
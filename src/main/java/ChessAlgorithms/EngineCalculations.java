@@ -1,9 +1,21 @@
 package ChessAlgorithms;
 
 import chess.logic.Board;
-import chess.logic.Moves;
-
-import java.util.*;
+import chess.logic.Move;
+import chess.logic.MoveGenerator;
+import chess.logic.PieceSquareTables;
+
+import java.nio.CharBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Consumer;
 
 public class EngineCalculations {
     // Piece values for evaluation (centipawns)
@@ -12,298 +24,949 @@ public class EngineCalculations {
     private static final int BISHOP_VALUE = 330;
     private static final int ROOK_VALUE = 500;
     private static final int QUEEN_VALUE = 900;
-    private static final int KING_VALUE = 20000;
+    private static final int[] MATERIAL_VALUES = {PAWN_VALUE, KNIGHT_VALUE, BISHOP_VALUE, ROOK_VALUE, QUEEN_VALUE};
 
-    private static final int CHECKMATE_SCORE = 100000;
+    // Mate scores are MATE_SCORE minus the plies to mate; anything beyond MATE_BOUND is a mate
+    public static final int MATE_SCORE = 100000;
+    public static final int MATE_BOUND = MATE_SCORE - 1000;
+    private static final int INFINITY = MATE_SCORE + 1;
     private static final int STALEMATE_SCORE = 0;
 
+    private static final int MAX_PLY = 128;
+    private static final int MAX_SEARCH_DEPTH = MAX_PLY / 2;
+    // Nodes between two looks at the clock; a power of two
+    private static final int CLOCK_CHECK_INTERVAL = 1024;
+    private static final int DEFAULT_HASH_MB = 16;
+    // 16 bytes each, so 1 MB per engine
+    private static final int PAWN_HASH_ENTRIES = 1 << 16;
+    // Delta pruning: captures that cannot lift the score to alpha even with this much extra are skipped
+    private static final int DELTA_MARGIN = 200;
+    private static final int[] NO_KILLERS = {Move.NONE, Move.NONE};
+
+    // Selective search
+    private static final int NULL_MOVE_MIN_DEPTH = 3;
+    private static final int FUTILITY_MAX_DEPTH = 2;
+    private static final int[] FUTILITY_MARGIN = {0, 200, 450};
+    private static final int LMR_MIN_DEPTH = 3;
+    private static final int LMR_MIN_MOVES = 3;
+    private static final int ASPIRATION_MIN_DEPTH = 4;
+    private static final int ASPIRATION_WINDOW = 25;
+    // Late move reduction by depth and move number: grows with the log of both
+    private static final int[][] LMR_REDUCTIONS = new int[64][64];
+
+    static {
+        for (int depth = 1; depth < 64; depth++) {
+            for (int moveNumber = 1; moveNumber < 64; moveNumber++) {
+                LMR_REDUCTIONS[depth][moveNumber] = (int) (0.75 + Math.log(depth) * Math.log(moveNumber) / 2.25);
+            }
+        }
+    }
+    // History scores are halved once one of them grows past this
+    private static final int HISTORY_LIMIT = 1 << 20;
+
+    // Threads for Lazy SMP helper searches, shared by all engines and created on demand
+    private static final ExecutorService HELPER_POOL = Executors.newCachedThreadPool(task -> {
+        Thread thread = new Thread(task, "search-helper");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    // One reusable move picker per ply of the current search
+    private final MovePicker[] pickers = new MovePicker[MAX_PLY];
+    private final TranspositionTable transpositionTable;
+    // Not shared between threads: pawn evaluation is cheap enough to repeat per helper
+    private final PawnHashTable pawnTable = new PawnHashTable(PAWN_HASH_ENTRIES);
+    // Two quiet moves per ply that recently caused a beta cutoff
+    private final int[][] killers = new int[MAX_PLY][2];
+    // Butterfly history per side: cutoff bonuses of quiet moves indexed by from * 64 + to
+    private final int[][] history = new int[2][64 * 64];
+    // Triangular principal variation table: pvTable[ply] holds the best line from ply onwards
+    private final int[][] pvTable = new int[MAX_PLY][MAX_PLY];
+    private final int[] pvLength = new int[MAX_PLY];
+    // Root moves skipped by the search, so a MultiPV pass finds the best of the rest
+    private final int[] excludedRootMoves = new int[MoveGenerator.MAX_MOVES];
+    private int excludedRootMoveCount;
+    private long nodes;
+    // Counters of the running search
+    private final SearchStats stats = new SearchStats();
+
+    // Time control of the running search
+    private SearchClock clock = SearchClock.unlimited();
+    private volatile boolean stopRequested;
+    private boolean stopped;
+    private boolean abortAllowed;
+    // Nodes a search may visit, as for UCI "go nodes"; 0 for no limit
+    private long nodeLimit;
+    private long searchStartNodes;
+
+    private OpeningBook openingBook;
+    private Tablebase tablebase;
+    // Every helper has its own, since they probe at the same time
+    private final Tablebase.ProbeBuffers probeBuffers = new Tablebase.ProbeBuffers();
+
+    // Helper engines for Lazy SMP, kept between searches so their tables are allocated once
+    private final List<EngineCalculations> helpers = new ArrayList<>();
+    // FEN of the root, copied into the helpers' boards without building strings
+    private final char[] rootFEN = new char[Board.MAX_FEN_LENGTH];
+    // This engine's copy of the root while it runs as a helper, reloaded for every search
+    private Board helperBoard;
+
+    public EngineCalculations() {
+        this(new TranspositionTable(DEFAULT_HASH_MB));
+    }
+
+    // The table may be shared with other EngineCalculations searching at the same time
+    public EngineCalculations(TranspositionTable transpositionTable) {
+        this.transpositionTable = transpositionTable;
+        for (int ply = 0; ply < MAX_PLY; ply++) {
+            pickers[ply] = new MovePicker();
+        }
+    }
+
+    public TranspositionTable getTranspositionTable() {
+        return transpositionTable;
+    }
+
+    // Positions visited since the engine was created
+    public long getNodes() {
+        return nodes;
+    }
+
     /**
      * Evaluates the current board position from white's perspective
      * Positive = white is better, Negative = black is better
      */
-    public double evaluate(Board board) {
-        // Check for game over conditions first
-        if (isCheckmate(board, "w")) return -CHECKMATE_SCORE; // Black wins
-        if (isCheckmate(board, "b")) return CHECKMATE_SCORE;  // White wins
-        if (isStalemate(board)) return STALEMATE_SCORE;
-
-        double score = 0;
-
-        // Material evaluation
-        score += evaluateMaterial(board);
-
-        // Piece activity/mobility
-        score += evaluateMobility(board);
+    public int evaluate(Board board) {
+        // Material and piece placement, kept up to date by the board and blended by game phase.
+        // Checkmate and stalemate are found by the search, which sees there are no legal moves.
+        int midgame = board.getMidgameScore();
+        int endgame = board.getEndgameScore();
 
         // Pawn structure
-        score += evaluatePawnStructure(board);
+        long pawnScore = evaluatePawnStructure(board);
+        midgame += PawnStructure.midgame(pawnScore);
+        endgame += PawnStructure.endgame(pawnScore);
 
-        // King safety
-        score += evaluateKingSafety(board);
+        // King safety only matters while there are pieces left to attack the king
+        midgame += evaluateKingSafety(board);
 
-        return score;
+        return PieceSquareTables.taper(midgame, endgame, board.getGamePhase());
     }
 
     /**
-     * Basic minimax algorithm with alpha-beta pruning
+     * Negamax alpha-beta search with principal variation search: the first move of a node is
+     * searched with the full window, the rest with a null window and only re-searched when
+     * they beat alpha.
      * @param board Current board state
-     * @param depth How many moves to look ahead
-     * @param alpha Best value for maximizing player (white)
-     * @param beta Best value for minimizing player (black)
-     * @param maximizingPlayer True if it's white's turn to move
-     * @return The best evaluation score found
+     * @param depth How many plies to look ahead
+     * @param alpha Score the side to move is already guaranteed
+     * @param beta Score the opponent is already guaranteed, negated
+     * @return The score from the side to move's point of view, in centipawns or as a mate score
      */
-    public double minimax(Board board, int depth, double alpha, double beta, boolean maximizingPlayer) {
-        // Base case: reached max depth or game over
-        if (depth == 0 || isGameOver(board)) {
-            return evaluate(board);
+    public int negamax(Board board, int depth, int alpha, int beta) {
+        prepareStandaloneSearch();
+        return negamax(board, depth, alpha, beta, 0, false);
+    }
+
+    private int negamax(Board board, int depth, int alpha, int beta, int ply, boolean nullMoveAllowed) {
+        nodes++;
+        pvLength[ply] = ply;
+        if (ply > stats.selectiveDepth) {
+            stats.selectiveDepth = ply;
+        }
+        if (shouldAbort()) {
+            return 0;
         }
 
-        String currentTurn = board.getFENStringPosition().split(" ")[1];
-        List<String> legalMoves = generateLegalMoves(board, currentTurn);
+        // Positions in the endgame tables are known exactly; the root is handled by probeRoot
+        if (tablebase != null && ply > 0 && Tablebase.isCandidate(board)) {
+            int value = tablebase.probe(board, probeBuffers);
+            if (value != Tablebase.UNKNOWN) {
+                stats.tablebaseHits++;
+                return Tablebase.score(value, ply);
+            }
+        }
 
-        if (maximizingPlayer) {
-            double maxEval = -Double.MAX_VALUE;
-            for (String move : legalMoves) {
-                // Make move
-                Board newBoard = makeMove(board, move);
+        // Check extension: a side in check is never scored statically, so mates are always seen
+        int side = board.getSideToMove();
+        boolean inCheck = board.isInCheck(side);
+        if (inCheck) {
+            depth++;
+        }
 
-                // Recursive call
-                double eval = minimax(newBoard, depth - 1, alpha, beta, false);
-                maxEval = Math.max(maxEval, eval);
+        // Base case: reached max depth, resolve the captures still pending
+        if (depth <= 0 || ply >= MAX_PLY - 1) {
+            return quiescence(board, alpha, beta, ply);
+        }
 
-                // Alpha-beta pruning
-                alpha = Math.max(alpha, eval);
-                if (beta <= alpha) {
-                    break; // Beta cutoff
-                }
+        // Outside the principal variation a stored result at least as deep settles the node
+        boolean pvNode = beta - alpha > 1;
+        long key = board.getZobristKey();
+        long entry = transpositionTable.probe(key);
+        int hashMove = Move.NONE;
+        stats.hashProbes++;
+        if (entry == TranspositionTable.NO_ENTRY) {
+            if (transpositionTable.isBucketFull(key)) {
+                stats.hashCollisions++;
             }
-            return maxEval;
         } else {
-            double minEval = Double.MAX_VALUE;
-            for (String move : legalMoves) {
-                // Make move
-                Board newBoard = makeMove(board, move);
-
-                // Recursive call
-                double eval = minimax(newBoard, depth - 1, alpha, beta, true);
-                minEval = Math.min(minEval, eval);
-
-                // Alpha-beta pruning
-                beta = Math.min(beta, eval);
-                if (beta <= alpha) {
-                    break; // Alpha cutoff
+            stats.hashHits++;
+            hashMove = TranspositionTable.move(entry);
+            if (!pvNode && TranspositionTable.depth(entry) >= depth) {
+                int score = scoreFromTable(TranspositionTable.score(entry), ply);
+                int bound = TranspositionTable.bound(entry);
+                if (bound == TranspositionTable.EXACT
+                        || (bound == TranspositionTable.LOWER_BOUND && score >= beta)
+                        || (bound == TranspositionTable.UPPER_BOUND && score <= alpha)) {
+                    return score;
+                }
+            }
+        }
+
+        boolean selective = !pvNode && !inCheck;
+        int staticEval = selective ? staticEvaluation(board) : 0;
+
+        // Null move: if passing still beats beta after a reduced search, a real move will too.
+        // Not tried without pieces, where passing may be the only good move (zugzwang).
+        if (selective && nullMoveAllowed && depth >= NULL_MOVE_MIN_DEPTH && staticEval >= beta
+                && board.hasNonPawnMaterial(side)) {
+            int reduction = depth > 6 ? 3 : 2;
+            board.makeNullMove();
+            int score = -negamax(board, depth - 1 - reduction, -beta, -beta + 1, ply + 1, false);
+            board.unmakeNullMove();
+            if (stopped) {
+                return 0;
+            }
+            if (score >= beta) {
+                // An unproven mate from a null move is not trusted
+                return score >= MATE_BOUND ? beta : score;
+            }
+        }
+
+        // Futility: near the leaves, quiet moves cannot lift a hopeless static score to alpha
+        boolean futile = selective && depth <= FUTILITY_MAX_DEPTH && Math.abs(alpha) < MATE_BOUND
+                && staticEval + FUTILITY_MARGIN[depth] <= alpha;
+
+        int alphaOriginal = alpha;
+        int bestScore = -INFINITY;
+        int bestMove = Move.NONE;
+        int moveCount = 0;
+        int[] plyKillers = killers[ply];
+
+        MovePicker picker = pickers[ply];
+        picker.init(board, hashMove, plyKillers, history[side]);
+        int move;
+
+        while ((move = picker.nextMove()) != Move.NONE) {
+            if (ply == 0 && isExcludedRootMove(move)) {
+                continue;
+            }
+            moveCount++;
+            boolean quiet = !Move.isCapture(move) && !Move.isPromotion(move);
+            board.makeMove(move);
+            boolean givesCheck = board.isInCheck(side ^ 1);
+
+            if (futile && quiet && !givesCheck && moveCount > 1) {
+                board.unmakeMove();
+                bestScore = Math.max(bestScore, staticEval + FUTILITY_MARGIN[depth]);
+                continue;
+            }
+
+            int score;
+            if (moveCount == 1) {
+                score = -negamax(board, depth - 1, -beta, -alpha, ply + 1, true);
+            } else {
+                // Late move reductions: quiet moves ordered late are searched shallower first
+                int reduction = 0;
+                if (depth >= LMR_MIN_DEPTH && moveCount > LMR_MIN_MOVES && quiet && !inCheck && !givesCheck
+                        && move != plyKillers[0] && move != plyKillers[1]) {
+                    reduction = Math.min(LMR_REDUCTIONS[Math.min(depth, 63)][Math.min(moveCount, 63)], depth - 2);
                 }
+
+                // Prove the move is no better than alpha; re-search deeper and wider if it is
+                score = -negamax(board, depth - 1 - reduction, -alpha - 1, -alpha, ply + 1, true);
+                if (score > alpha && reduction > 0) {
+                    score = -negamax(board, depth - 1, -alpha - 1, -alpha, ply + 1, true);
+                }
+                if (score > alpha && score < beta) {
+                    score = -negamax(board, depth - 1, -beta, -alpha, ply + 1, true);
+                }
+            }
+            board.unmakeMove();
+            if (stopped) {
+                return 0;
+            }
+
+            if (score > bestScore) {
+                bestScore = score;
+                bestMove = move;
+                if (score > alpha) {
+                    alpha = score;
+                    updatePrincipalVariation(ply, move);
+                    if (alpha >= beta) {
+                        recordCutoff(board, move, depth, ply);
+                        stats.betaCutoffs++;
+                        if (moveCount == 1) {
+                            stats.firstMoveCutoffs++;
+                        }
+                        break; // Beta cutoff
+                    }
+                }
+            }
+        }
+
+        // No legal moves: checkmate, scored so that shorter mates are preferred, or stalemate
+        if (moveCount == 0) {
+            return inCheck ? -MATE_SCORE + ply : STALEMATE_SCORE;
+        }
+
+        int bound;
+        if (bestScore >= beta) {
+            bound = TranspositionTable.LOWER_BOUND;
+        } else if (bestScore > alphaOriginal) {
+            bound = TranspositionTable.EXACT;
+        } else {
+            bound = TranspositionTable.UPPER_BOUND;
+            bestMove = Move.NONE; // No move proved better than the others
+        }
+        // A root searched without some of its moves has no true score to store
+        if (ply > 0 || excludedRootMoveCount == 0) {
+            transpositionTable.store(key, bestMove, scoreToTable(bestScore, ply), depth, bound);
+        }
+        return bestScore;
+    }
+
+    private boolean isExcludedRootMove(int move) {
+        for (int i = 0; i < excludedRootMoveCount; i++) {
+            if (excludedRootMoves[i] == move) {
+                return true;
             }
-            return minEval;
         }
+        return false;
     }
 
     /**
-     * Finds the best move using minimax with alpha-beta pruning
-     * @param board Current board state
-     * @param depth Search depth
-     * @return The best move in format "e2-e4"
+     * Searches captures and promotions only until the position is quiet, so leaf scores are not
+     * taken in the middle of an exchange. The side to move may stand pat on the static evaluation
+     * instead of capturing. In check every evasion is searched, so mates are still found.
      */
-    public String findBestMove(Board board, int depth) {
-        String currentTurn = board.getFENStringPosition().split(" ")[1];
-        boolean maximizingPlayer = currentTurn.equals("w");
+    private int quiescence(Board board, int alpha, int beta, int ply) {
+        nodes++;
+        stats.quiescenceNodes++;
+        pvLength[ply] = ply;
+        if (ply > stats.selectiveDepth) {
+            stats.selectiveDepth = ply;
+        }
+        if (shouldAbort()) {
+            return 0;
+        }
+
+        if (ply >= MAX_PLY - 1) {
+            return staticEvaluation(board);
+        }
+
+        boolean inCheck = board.isInCheck(board.getSideToMove());
+        int standPat = 0;
+        int bestScore = -INFINITY;
+        MovePicker picker = pickers[ply];
 
-        List<String> legalMoves = generateLegalMoves(board, currentTurn);
-        String bestMove = legalMoves.get(0); // Default to first move
-        double bestEval = maximizingPlayer ? -Double.MAX_VALUE : Double.MAX_VALUE;
+        if (inCheck) {
+            picker.init(board, Move.NONE, NO_KILLERS, history[board.getSideToMove()]);
+        } else {
+            // Stand pat: not capturing is always an option, so the static score is a lower bound
+            standPat = staticEvaluation(board);
+            if (standPat >= beta) {
+                return standPat;
+            }
+            alpha = Math.max(alpha, standPat);
+            bestScore = standPat;
+            picker.initQuiescence(board);
+        }
 
-        for (String move : legalMoves) {
-            // Make move
-            Board newBoard = makeMove(board, move);
+        int moveCount = 0;
+        int move;
+        while ((move = picker.nextMove()) != Move.NONE) {
+            moveCount++;
 
-            // Evaluate position
-            double eval = minimax(newBoard, depth - 1,
-                    -Double.MAX_VALUE, Double.MAX_VALUE, !maximizingPlayer);
+            // Delta pruning: skip captures that cannot raise the score to alpha even with a margin
+            if (!inCheck && standPat + captureGain(board, move) + DELTA_MARGIN <= alpha) {
+                continue;
+            }
 
-            // Update best move
-            if ((maximizingPlayer && eval > bestEval) ||
-                    (!maximizingPlayer && eval < bestEval)) {
-                bestEval = eval;
-                bestMove = move;
+            board.makeMove(move);
+            int score = -quiescence(board, -beta, -alpha, ply + 1);
+            board.unmakeMove();
+            if (stopped) {
+                return 0;
             }
+
+            if (score > bestScore) {
+                bestScore = score;
+                if (score > alpha) {
+                    alpha = score;
+                    updatePrincipalVariation(ply, move);
+                    if (alpha >= beta) {
+                        break; // Beta cutoff
+                    }
+                }
+            }
+        }
+
+        if (inCheck && moveCount == 0) {
+            return -MATE_SCORE + ply;
         }
+        return bestScore;
+    }
 
-        return bestMove;
+    // Material the move wins outright: the captured piece plus what a promotion adds
+    private static int captureGain(Board board, int move) {
+        int gain = 0;
+        if (Move.flags(move) == Move.EN_PASSANT) {
+            gain = PAWN_VALUE;
+        } else if (Move.isCapture(move)) {
+            gain = StaticExchange.value(board.getPieceAt(Move.to(move)) % 6);
+        }
+        if (Move.isPromotion(move)) {
+            gain += StaticExchange.value(Move.promotionType(move)) - PAWN_VALUE;
+        }
+        return gain;
     }
 
     /**
-     * Iterative deepening - searches progressively deeper until time runs out
-     * Better for time management in actual games
+     * Searches the position to exactly the given depth, without time or node limits.
+     * @return The score and principal variation (empty if there are no legal moves)
      */
-    public String iterativeDeepening(Board board, long maxTimeMillis) {
-        String bestMove = "";
+    public SearchResult searchDepth(Board board, int depth) {
+        prepareStandaloneSearch();
+        return searchDepth(board, depth, -INFINITY, INFINITY);
+    }
+
+    // The public single searches run to the end, whatever stopped or limited the search before them
+    private void prepareStandaloneSearch() {
+        clock = SearchClock.unlimited();
+        stopped = false;
+        abortAllowed = false;
+        searchStartNodes = nodes;
+    }
+
+    // Returns null if the search was stopped before the iteration finished
+    private SearchResult searchDepth(Board board, int depth, int alpha, int beta) {
+        long startNodes = nodes;
         long startTime = System.currentTimeMillis();
 
-        for (int depth = 1; depth <= 10; depth++) {
-            if (System.currentTimeMillis() - startTime > maxTimeMillis) {
-                break; // Time's up
+        int score = negamax(board, depth, alpha, beta, 0, false);
+        if (stopped) {
+            return null;
+        }
+        int[] pv = new int[pvLength[0]];
+        System.arraycopy(pvTable[0], 0, pv, 0, pv.length);
+
+        return new SearchResult(depth, score, pv, nodes - startNodes, System.currentTimeMillis() - startTime);
+    }
+
+    /**
+     * Aspiration window: searches a narrow window around the previous iteration's score, widening
+     * it on the failing side until the score falls inside. Narrow windows prune far more.
+     * @return The result, or null if the search was stopped
+     */
+    private SearchResult aspirationSearch(Board board, int depth, int previousScore) {
+        if (depth < ASPIRATION_MIN_DEPTH || Math.abs(previousScore) >= MATE_BOUND) {
+            return searchDepth(board, depth, -INFINITY, INFINITY);
+        }
+
+        int delta = ASPIRATION_WINDOW;
+        int alpha = previousScore - delta;
+        int beta = previousScore + delta;
+        while (true) {
+            SearchResult result = searchDepth(board, depth, alpha, beta);
+            if (result == null) {
+                return null;
             }
+            if (result.getScore() <= alpha) {
+                alpha = Math.max(result.getScore() - delta, -INFINITY);
+            } else if (result.getScore() >= beta) {
+                beta = Math.min(result.getScore() + delta, INFINITY);
+            } else {
+                return result;
+            }
+            delta *= 2;
+        }
+    }
+
+    public SearchResult search(Board board, int maxDepth) {
+        return search(board, maxDepth, SearchClock.unlimited());
+    }
+
+    /**
+     * Iterative deepening up to maxDepth within the clock's budget. Every iteration starts from
+     * the previous one's principal variation through the transposition table. No iteration is
+     * started after the soft limit; at the hard limit the running one is abandoned.
+     * @return The result of the deepest completed iteration
+     */
+    public SearchResult search(Board board, int maxDepth, SearchClock clock) {
+        SearchResult tablebaseResult = probeRoot(board);
+        if (tablebaseResult != null) {
+            stopRequested = false;
+            SearchMetrics.record(tablebaseResult);
+            return tablebaseResult;
+        }
+        transpositionTable.startSearch();
+        SearchResult result;
+        try {
+            result = runSearch(board, maxDepth, clock, 0);
+        } finally {
+            stopRequested = false;
+            transpositionTable.endSearch();
+        }
+        SearchMetrics.record(result);
+        return result;
+    }
 
+    /**
+     * Lazy SMP: threads - 1 helper threads search copies of the position at the same time,
+     * sharing this engine's transposition table. Every second helper skips ahead one depth, so
+     * the threads fill the table with different parts of the tree and the main search finds
+     * more of its work already done. The main thread's result is returned unless a helper
+     * completed a deeper iteration; nodes and counters are summed over all threads.
+     */
+    public SearchResult search(Board board, int maxDepth, SearchClock clock, int threads) {
+        if (threads <= 1) {
+            return search(board, maxDepth, clock);
+        }
+        SearchResult tablebaseResult = probeRoot(board);
+        if (tablebaseResult != null) {
+            stopRequested = false;
+            SearchMetrics.record(tablebaseResult);
+            return tablebaseResult;
+        }
+
+        transpositionTable.startSearch();
+        try {
+            return searchWithHelpers(board, maxDepth, clock, threads);
+        } finally {
+            transpositionTable.endSearch();
+        }
+    }
+
+    private SearchResult searchWithHelpers(Board board, int maxDepth, SearchClock clock, int threads) {
+        while (helpers.size() < threads - 1) {
+            helpers.add(new EngineCalculations(transpositionTable));
+        }
+
+        CharBuffer fen = CharBuffer.wrap(rootFEN, 0, board.writeFEN(rootFEN, 0));
+        List<Future<SearchResult>> helperResults = new ArrayList<>();
+        for (int i = 0; i < threads - 1; i++) {
+            EngineCalculations helper = helpers.get(i);
+            if (helper.helperBoard == null) {
+                helper.helperBoard = new Board();
+            }
+            helper.helperBoard.setPosition(fen.rewind());
+            int depthOffset = (i + 1) % 2;
+            // Helpers are only stopped by this search, so an earlier stop must not carry over
+            helper.stopRequested = false;
+            helper.tablebase = tablebase;
+            helperResults.add(HELPER_POOL.submit(() -> helper.runSearch(helper.helperBoard, maxDepth, clock, depthOffset)));
+        }
+
+        SearchResult result;
+        try {
+            result = runSearch(board, maxDepth, clock, 0);
+        } finally {
+            stopRequested = false;
+            for (int i = 0; i < threads - 1; i++) {
+                helpers.get(i).stop();
+            }
+        }
+
+        SearchResult best = result;
+        long totalNodes = result.getNodes();
+        SearchStats totalStats = result.getStats().copy();
+        for (Future<SearchResult> helperResult : helperResults) {
             try {
-                String move = findBestMove(board, depth);
-                if (!move.isEmpty()) {
-                    bestMove = move;
+                SearchResult helper = helperResult.get();
+                if (helper.getDepth() > best.getDepth()) {
+                    best = helper;
                 }
-                System.out.println("Depth " + depth + " completed. Best move: " + bestMove);
-            } catch (Exception e) {
-                System.out.println("Error at depth " + depth + ": " + e.getMessage());
+                totalNodes += helper.getNodes();
+                totalStats.add(helper.getStats());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
                 break;
+            } catch (ExecutionException e) {
+                throw new IllegalStateException("Helper search failed", e.getCause());
             }
         }
 
-        return bestMove;
+        SearchResult combined = new SearchResult(best.getDepth(), best.getScore(), best.pvMoves(), totalNodes,
+                result.getTimeMillis(), totalStats, result.getIterations());
+        SearchMetrics.record(combined);
+        return combined;
     }
 
-    // Helper methods for evaluation
+    // Iterative deepening shared by the main search and the helpers; after depth 1 it continues at 2 + depthOffset
+    private SearchResult runSearch(Board board, int maxDepth, SearchClock clock, int depthOffset) {
+        clearOrdering();
+        stats.reset();
+        this.clock = clock;
+        this.stopped = false;
+        long startNodes = nodes;
+        searchStartNodes = startNodes;
+        long startTime = System.currentTimeMillis();
+        List<DepthTiming> iterations = new ArrayList<>();
 
-    private double evaluateMaterial(Board board) {
-        double material = 0;
-
-        // You'll need to implement getPiecePositions in your Board class
-        // This is a simplified version - you'll need to adapt to your Board class
-
-        for (int row = 0; row < 8; row++) {
-            for (int col = 0; col < 8; col++) {
-                // This depends on how your Board class stores pieces
-                // You'll need to adapt this to your actual implementation
-                String piece = ""; // board.getPieceAt(row, col);
-
-                switch (piece) {
-                    case "P": material += PAWN_VALUE; break;
-                    case "N": material += KNIGHT_VALUE; break;
-                    case "B": material += BISHOP_VALUE; break;
-                    case "R": material += ROOK_VALUE; break;
-                    case "Q": material += QUEEN_VALUE; break;
-                    case "K": material += KING_VALUE; break;
-                    case "p": material -= PAWN_VALUE; break;
-                    case "n": material -= KNIGHT_VALUE; break;
-                    case "b": material -= BISHOP_VALUE; break;
-                    case "r": material -= ROOK_VALUE; break;
-                    case "q": material -= QUEEN_VALUE; break;
-                    case "k": material -= KING_VALUE; break;
-                }
+        // The first iteration is never aborted, so there is always a move to play
+        abortAllowed = false;
+        SearchResult result = searchDepth(board, 1, -INFINITY, INFINITY);
+        iterations.add(new DepthTiming(1, result.getNodes(), result.getTimeMillis()));
+        abortAllowed = true;
+
+        for (int depth = 2 + depthOffset; depth <= maxDepth && result.bestMove() != Move.NONE; depth++) {
+            if (clock.softLimitReached()) {
+                break;
+            }
+            long iterationNodes = nodes;
+            long iterationStart = System.currentTimeMillis();
+            SearchResult iteration = aspirationSearch(board, depth, result.getScore());
+            if (iteration == null) {
+                break; // Aborted: fall back to the last completed iteration
             }
+            iterations.add(new DepthTiming(depth, nodes - iterationNodes, System.currentTimeMillis() - iterationStart));
+            result = iteration;
         }
 
-        return material;
+        abortAllowed = false;
+        return new SearchResult(result.getDepth(), result.getScore(), result.pvMoves(), nodes - startNodes,
+                System.currentTimeMillis() - startTime, stats.copy(), iterations);
     }
 
-    private double evaluateMobility(Board board) {
-        // Count how many legal moves each side has
-        // More mobility = better position
-        List<String> whiteMoves = generateLegalMoves(board, "w");
-        List<String> blackMoves = generateLegalMoves(board, "b");
-
-        return (whiteMoves.size() - blackMoves.size()) * 0.1; // Small weight
+    /**
+     * MultiPV: the best lines root moves, each with its own score and principal variation.
+     * Every depth searches the root once per line, leaving out the moves of the lines already
+     * found at that depth. The passes share the transposition table, killers and history, so
+     * each one starts from the work of those before it instead of searching from scratch.
+     * @param lines How many root moves to report; fewer if the position has fewer legal moves
+     * @param listener Receives the lines, best first, after every completed depth; may be null
+     * @return The lines of the deepest completed depth, best first. Every line carries the
+     * nodes, time and counters of the whole search.
+     */
+    public List<SearchResult> searchMultiPV(Board board, int maxDepth, SearchClock clock, int lines,
+                                            Consumer<List<SearchResult>> listener) {
+        transpositionTable.startSearch();
+        try {
+            return runMultiPV(board, maxDepth, clock, lines, listener);
+        } finally {
+            stopRequested = false;
+            transpositionTable.endSearch();
+        }
     }
 
-    private double evaluatePawnStructure(Board board) {
-        // Simplified pawn structure evaluation
-        // You can expand this with doubled pawns, isolated pawns, passed pawns, etc.
-        double pawnScore = 0;
+    private List<SearchResult> runMultiPV(Board board, int maxDepth, SearchClock clock, int lines,
+                                          Consumer<List<SearchResult>> listener) {
+        clearOrdering();
+        stats.reset();
+        this.clock = clock;
+        this.stopped = false;
+        long startNodes = nodes;
+        searchStartNodes = startNodes;
+        long startTime = System.currentTimeMillis();
+        List<DepthTiming> iterations = new ArrayList<>();
+        // Without legal moves a single pass reports the mate or stalemate
+        int lineCount = Math.max(1, Math.min(lines, MoveGenerator.generateLegal(board, new int[MoveGenerator.MAX_MOVES], 0)));
+
+        // As in runSearch, the first depth is never aborted
+        abortAllowed = false;
+        List<SearchResult> result = searchLines(board, 1, lineCount, null);
+        iterations.add(new DepthTiming(1, nodes - startNodes, System.currentTimeMillis() - startTime));
+        abortAllowed = true;
+        if (listener != null) {
+            listener.accept(withTotals(result, startNodes, startTime, iterations));
+        }
 
-        // This would require analyzing pawn positions
-        // For now, return 0 as a placeholder
+        for (int depth = 2; depth <= maxDepth && result.get(0).bestMove() != Move.NONE; depth++) {
+            if (clock.softLimitReached()) {
+                break;
+            }
+            long iterationNodes = nodes;
+            long iterationStart = System.currentTimeMillis();
+            List<SearchResult> iteration = searchLines(board, depth, lineCount, result);
+            if (iteration == null) {
+                break; // Aborted: fall back to the last completed depth
+            }
+            iterations.add(new DepthTiming(depth, nodes - iterationNodes, System.currentTimeMillis() - iterationStart));
+            result = iteration;
+            if (listener != null) {
+                listener.accept(withTotals(result, startNodes, startTime, iterations));
+            }
+        }
 
-        return pawnScore;
+        abortAllowed = false;
+        List<SearchResult> finalLines = withTotals(result, startNodes, startTime, iterations);
+        SearchMetrics.record(finalLines.get(0));
+        return finalLines;
     }
 
-    private double evaluateKingSafety(Board board) {
-        // Simplified king safety
-        // Penalize exposed kings, reward castled kings
-        double safetyScore = 0;
+    /**
+     * One MultiPV depth: a pass per line, each excluding the best moves of the passes before it.
+     * Passes after the first depth use aspiration windows around the previous depth's scores.
+     * @return The lines, best first, or null if the search was stopped
+     */
+    private List<SearchResult> searchLines(Board board, int depth, int lineCount, List<SearchResult> previous) {
+        List<SearchResult> lines = new ArrayList<>(lineCount);
+        try {
+            for (int i = 0; i < lineCount; i++) {
+                SearchResult line = previous == null ? searchDepth(board, depth, -INFINITY, INFINITY)
+                        : aspirationSearch(board, depth, previous.get(i).getScore());
+                if (line == null) {
+                    return null;
+                }
+                lines.add(line);
+                excludedRootMoves[excludedRootMoveCount++] = line.bestMove();
+            }
+        } finally {
+            excludedRootMoveCount = 0;
+        }
+        // A later pass can outscore an earlier one when the deeper search changes its mind
+        lines.sort(Comparator.comparingInt(SearchResult::getScore).reversed());
+        return lines;
+    }
 
-        // This would require analyzing king position and pawn shield
-        // For now, return 0 as a placeholder
+    private List<SearchResult> withTotals(List<SearchResult> lines, long startNodes, long startTime,
+                                          List<DepthTiming> iterations) {
+        long totalNodes = nodes - startNodes;
+        long time = System.currentTimeMillis() - startTime;
+        SearchStats totalStats = stats.copy();
+        List<DepthTiming> timings = List.copyOf(iterations);
+        List<SearchResult> results = new ArrayList<>(lines.size());
+        for (SearchResult line : lines) {
+            results.add(new SearchResult(line.getDepth(), line.getScore(), line.pvMoves(), totalNodes, time,
+                    totalStats, timings));
+        }
+        return results;
+    }
 
-        return safetyScore;
+    /**
+     * Makes the running search return its last completed iteration; safe to call from another
+     * thread. A stop that arrives before the search starts ends it after its first iteration,
+     * so it is never lost; every search clears it when it returns.
+     */
+    public void stop() {
+        stopRequested = true;
     }
 
-    // Game state detection methods
+    /**
+     * Finds the best move with an iterative deepening search
+     * @param board Current board state
+     * @param depth Search depth
+     * @return The best move in format "e2-e4", or "" if there are no legal moves
+     */
+    public String findBestMove(Board board, int depth) {
+        int bookMove = bookMove(board);
+        return bookMove != Move.NONE ? Move.toString(bookMove) : search(board, depth).getBestMove();
+    }
 
-    private boolean isGameOver(Board board) {
-        return isCheckmate(board, "w") || isCheckmate(board, "b") || isStalemate(board);
+    /**
+     * Iterative deepening - searches progressively deeper until time runs out
+     * Better for time management in actual games
+     */
+    public String iterativeDeepening(Board board, long maxTimeMillis) {
+        int bookMove = bookMove(board);
+        if (bookMove != Move.NONE) {
+            return Move.toString(bookMove);
+        }
+        return search(board, MAX_SEARCH_DEPTH, SearchClock.fixedTime(maxTimeMillis)).getBestMove();
     }
 
-    private boolean isCheckmate(Board board, String player) {
-        // Check if the player has any legal moves and is in check
-        List<String> legalMoves = generateLegalMoves(board, player);
-        return legalMoves.isEmpty() && isInCheck(board, player);
+    // Book moves are played instead of searching for the game-playing entry points; null disables the book
+    public void setOpeningBook(OpeningBook openingBook) {
+        this.openingBook = openingBook;
     }
 
-    private boolean isStalemate(Board board) {
-        // Check if current player has no legal moves but is not in check
-        String currentTurn = board.getFENStringPosition().split(" ")[1];
-        List<String> legalMoves = generateLegalMoves(board, currentTurn);
-        return legalMoves.isEmpty() && !isInCheck(board, currentTurn);
+    /**
+     * Stops later searches once they have visited this many nodes, keeping the last completed
+     * iteration; 0 removes the limit. Only the main thread of a Lazy SMP search counts.
+     * Node limits make searches repeatable on any machine, unlike time limits.
+     */
+    public void setNodeLimit(long nodeLimit) {
+        this.nodeLimit = nodeLimit;
     }
 
-    private boolean isInCheck(Board board, String player) {
-        // You already have this logic in your ChessGame class
-        // You might want to move it here or call it from there
-        String kingPosition = findKingPosition(board, player);
-        return isSquareAttacked(board, kingPosition, player.equals("w") ? "b" : "w");
+    // Endgame tables probed at the root and inside the search; null disables them
+    public void setTablebase(Tablebase tablebase) {
+        this.tablebase = tablebase;
     }
 
-    // Core engine methods you'll need to implement
+    /**
+     * Answers the root from the endgame tables when they cover it: the move that keeps the best
+     * result, mating fastest or losing slowest, followed by the best line for both sides until
+     * mate. Drawn positions get a single move that keeps the draw.
+     * @return The result, or null if no table covers the position or one of its moves
+     */
+    private SearchResult probeRoot(Board board) {
+        if (tablebase == null) {
+            return null;
+        }
+        int rootValue = tablebase.probe(board, probeBuffers);
+        if (rootValue == Tablebase.UNKNOWN) {
+            return null;
+        }
 
-    private List<String> generateLegalMoves(Board board, String player) {
-        List<String> legalMoves = new ArrayList<>();
+        long startTime = System.currentTimeMillis();
+        int[] moves = new int[MoveGenerator.MAX_MOVES];
+        int[] line = new int[MAX_PLY];
+        int length = 0;
+        while (length < MAX_PLY && (length == 0 || rootValue != 0)) {
+            int count = MoveGenerator.generateLegal(board, moves, 0);
+            int bestMove = Move.NONE;
+            int bestScore = -INFINITY;
+            for (int i = 0; i < count; i++) {
+                board.makeMove(moves[i]);
+                int value = tablebase.probe(board, probeBuffers);
+                board.unmakeMove();
+                if (value == Tablebase.UNKNOWN) {
+                    bestMove = Move.NONE;
+                    break;
+                }
+                int score = -Tablebase.score(value, 1);
+                if (score > bestScore) {
+                    bestScore = score;
+                    bestMove = moves[i];
+                }
+            }
+            if (bestMove == Move.NONE) {
+                break; // Mate, or a move leaves the tables
+            }
+            board.makeMove(bestMove);
+            line[length++] = bestMove;
+        }
+        for (int i = 0; i < length; i++) {
+            board.unmakeMove();
+        }
+        if (length == 0 && MoveGenerator.hasLegalMove(board, moves, 0)) {
+            return null;
+        }
 
-        // You'll need to implement this based on your existing move generation
-        // This should return all legal moves for the given player
-        // Format: ["e2-e4", "g1-f3", ...]
+        return new SearchResult(Math.max(length, 1), Tablebase.score(rootValue, 0), Arrays.copyOf(line, length),
+                0, System.currentTimeMillis() - startTime);
+    }
 
-        // Pseudocode:
-        // 1. Get all pieces for the player
-        // 2. For each piece, generate possible moves using your Moves class
-        // 3. Filter out moves that leave king in check
+    private int bookMove(Board board) {
+        return openingBook == null ? Move.NONE : openingBook.pickMove(board, ThreadLocalRandom.current());
+    }
 
-        return legalMoves;
+    /**
+     * Polls the clock every CLOCK_CHECK_INTERVAL nodes. Once the search is stopped every node
+     * returns at once, unmaking its moves on the way up.
+     */
+    private boolean shouldAbort() {
+        if (stopped) {
+            return true;
+        }
+        if (!abortAllowed || (nodes & (CLOCK_CHECK_INTERVAL - 1)) != 0) {
+            return false;
+        }
+        stopped = stopRequested || clock.hardLimitReached() || (nodeLimit > 0 && nodes - searchStartNodes >= nodeLimit);
+        return stopped;
     }
 
-    private Board makeMove(Board originalBoard, String move) {
-        // Create a copy of the board and apply the move
-        // You'll need to implement board copying in your Board class
+    // The move just searched at ply heads the variation found below it
+    private void updatePrincipalVariation(int ply, int move) {
+        pvTable[ply][ply] = move;
+        System.arraycopy(pvTable[ply + 1], ply + 1, pvTable[ply], ply + 1, pvLength[ply + 1] - ply - 1);
+        pvLength[ply] = pvLength[ply + 1];
+    }
 
-        Board newBoard = originalBoard; // You'll need to implement copy() in Board
-        String[] squares = move.split("-");
-        String fromSquare = squares[0];
-        String toSquare = squares[1];
+    // Mate scores are stored relative to the node, so they stay correct when found at another ply
+    private static int scoreToTable(int score, int ply) {
+        if (score >= MATE_BOUND) {
+            return score + ply;
+        } else if (score <= -MATE_BOUND) {
+            return score - ply;
+        }
+        return score;
+    }
 
-        String piece = newBoard.getSquare(fromSquare);
-        newBoard.setSquare(fromSquare, " "); // Clear original square
-        newBoard.setSquare(toSquare, piece); // Move piece to new square
+    private static int scoreFromTable(int score, int ply) {
+        if (score >= MATE_BOUND) {
+            return score - ply;
+        } else if (score <= -MATE_BOUND) {
+            return score + ply;
+        }
+        return score;
+    }
 
-        return newBoard;
+    // Evaluation from the side to move's point of view
+    private int staticEvaluation(Board board) {
+        int score = evaluate(board);
+        return board.getSideToMove() == Board.WHITE ? score : -score;
     }
 
-    private String findKingPosition(Board board, String player) {
-        String king = player.equals("w") ? "K" : "k";
+    // Quiet moves that cause a cutoff become killers of the ply and gain history
+    private void recordCutoff(Board board, int move, int depth, int ply) {
+        if (Move.isCapture(move) || Move.isPromotion(move)) {
+            return;
+        }
 
-        // You'll need to implement getPiecePositions in your Board class
-        ArrayList<String> positions = board.getPiecePositions(king);
-        return positions.isEmpty() ? "" : positions.get(0);
+        int[] plyKillers = killers[ply];
+        if (plyKillers[0] != move) {
+            plyKillers[1] = plyKillers[0];
+            plyKillers[0] = move;
+        }
+
+        int[] sideHistory = history[board.getSideToMove()];
+        int index = Move.from(move) * 64 + Move.to(move);
+        sideHistory[index] += depth * depth;
+        if (sideHistory[index] > HISTORY_LIMIT) {
+            for (int i = 0; i < sideHistory.length; i++) {
+                sideHistory[i] /= 2;
+            }
+        }
     }
 
-    private boolean isSquareAttacked(Board board, String square, String byPlayer) {
-        // Check if any of byPlayer's pieces can attack the given square
-        // Similar to your inCheck method but for any square
+    // Killers belong to the positions of the last search; history is kept but weakened
+    private void clearOrdering() {
+        for (int[] plyKillers : killers) {
+            plyKillers[0] = Move.NONE;
+            plyKillers[1] = Move.NONE;
+        }
+        for (int[] sideHistory : history) {
+            for (int i = 0; i < sideHistory.length; i++) {
+                sideHistory[i] /= 2;
+            }
+        }
+    }
+
+    // Helper methods for evaluation
+
+    // Plain material balance from the piece counts
+    private int evaluateMaterial(Board board) {
+        int material = 0;
+        for (int type = Board.WHITE_PAWN; type < Board.WHITE_KING; type++) {
+            int count = board.getPieceCount(type) - board.getPieceCount(type + Board.BLACK_PAWN);
+            material += count * MATERIAL_VALUES[type];
+        }
+        return material;
+    }
+
+    // Packed middlegame and endgame pawn terms, computed once per pawn structure
+    private long evaluatePawnStructure(Board board) {
+        long pawnKey = board.getPawnKey();
+        long pawnScore = pawnTable.probe(pawnKey);
+        if (pawnScore == PawnHashTable.NO_ENTRY) {
+            pawnScore = PawnStructure.evaluate(board);
+            pawnTable.store(pawnKey, pawnScore);
+        }
+        return pawnScore;
+    }
 
-        // You can adapt your existing inCheck logic here
-        return false; // Placeholder
+    // Pawn shield and open files around both kings; depends on the kings, so it is not cached
+    private int evaluateKingSafety(Board board) {
+        return PawnStructure.kingSafety(board);
     }
 
     /**
      * Quick evaluation for faster search - uses only material
      */
-    public double quickEvaluate(Board board) {
+    public int quickEvaluate(Board board) {
         return evaluateMaterial(board);
     }
 }
\ No newline at end of file
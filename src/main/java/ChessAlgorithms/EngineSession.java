@@ -0,0 +1,181 @@
+package ChessAlgorithms;
+
+import chess.logic.Board;
+
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * The engine's side of one game. A single EngineCalculations is kept for the whole game, so
+ * its transposition table and history carry over from move to move instead of starting cold.
+ *
+ * With pondering on, every reply starts a background search of the position after the
+ * opponent's expected answer, the second move of the principal variation. If the opponent
+ * plays it, that search just gets the move's time budget and usually answers at once; any
+ * other move stops it, and the table it filled still helps the real search. A front-end
+ * that decides itself what to ponder on, as a UCI GUI does, starts the search with ponder.
+ *
+ * Meant to be driven by one game thread: think, ponder, stopPondering and close are not
+ * called at the same time. Only stop may be called from another thread.
+ */
+public class EngineSession implements AutoCloseable {
+    private static final int MAX_DEPTH = 64;
+
+    private final EngineCalculations engine;
+    private final ExecutorService ponderThread = Executors.newSingleThreadExecutor(task -> {
+        Thread thread = new Thread(task, "ponder");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private boolean ponderingEnabled;
+
+    // The background search, the position it searches and its clock, while pondering
+    private Future<SearchResult> ponderSearch;
+    private long ponderKey;
+    private volatile SearchClock ponderClock;
+
+    private SearchResult lastResult;
+    private long ponderHits;
+    private long ponderMisses;
+
+    public EngineSession(int hashMegabytes) {
+        this.engine = new EngineCalculations(new TranspositionTable(hashMegabytes));
+    }
+
+    // The session's engine, e.g. to give it endgame tables
+    public EngineCalculations getEngine() {
+        return engine;
+    }
+
+    public void setPondering(boolean enabled) {
+        this.ponderingEnabled = enabled;
+        if (!enabled) {
+            stopPondering();
+        }
+    }
+
+    /**
+     * Chooses the engine's move in the game's current position and, with pondering on, starts
+     * thinking on the opponent's expected reply before returning.
+     * @param board The position with the engine to move; left unchanged
+     * @param clock Budget for this move
+     */
+    public SearchResult think(Board board, SearchClock clock) {
+        return think(board, MAX_DEPTH, clock, 1);
+    }
+
+    /**
+     * As think(Board, SearchClock), on several threads and no deeper than maxDepth. A ponder
+     * hit takes over the ponder search with the limits it was started with.
+     */
+    public SearchResult think(Board board, int maxDepth, SearchClock clock, int threads) {
+        SearchResult result = null;
+        if (ponderSearch != null) {
+            if (board.getZobristKey() == ponderKey) {
+                ponderHits++;
+                ponderClock.setLimits(clock);
+                result = awaitPonderSearch();
+            } else {
+                ponderMisses++;
+                stopPondering();
+            }
+        }
+        if (result == null) {
+            result = engine.search(board, maxDepth, clock, threads);
+        }
+        lastResult = result;
+
+        int[] pv = result.pvMoves();
+        if (ponderingEnabled && pv.length >= 2) {
+            Board ponderBoard = new Board(board.getFENStringPosition());
+            ponderBoard.makeMove(pv[0]);
+            ponderBoard.makeMove(pv[1]);
+            ponder(ponderBoard, MAX_DEPTH, threads);
+        }
+        return result;
+    }
+
+    /**
+     * Searches a position the opponent may reach in the background, until think or
+     * stopPondering. Keeps a ponder search that is already on the position; stops any other.
+     * @param board The position with the engine to move; copied, so the caller may change it
+     */
+    public void ponder(Board board, int maxDepth, int threads) {
+        if (ponderSearch != null) {
+            if (board.getZobristKey() == ponderKey) {
+                return;
+            }
+            stopPondering();
+        }
+        Board ponderBoard = new Board(board.getFENStringPosition());
+        SearchClock clock = SearchClock.unlimited();
+        ponderKey = ponderBoard.getZobristKey();
+        ponderClock = clock;
+        ponderSearch = ponderThread.submit(() -> engine.search(ponderBoard, maxDepth, clock, threads));
+    }
+
+    /**
+     * Abandons the background search, e.g. when the opponent played something else or the game
+     * ended. Uses the clock rather than EngineCalculations.stop, which a search only starting
+     * now would miss.
+     * @return What the ponder search found so far, or null if there was none
+     */
+    public SearchResult stopPondering() {
+        if (ponderSearch == null) {
+            return null;
+        }
+        ponderClock.setLimits(SearchClock.fixedTime(0));
+        return awaitPonderSearch();
+    }
+
+    /**
+     * Ends the ponder search at once, also after think took it over on a hit, so think returns
+     * its last completed iteration. Searches think started itself are stopped through their clock.
+     */
+    public void stop() {
+        SearchClock clock = ponderClock;
+        if (clock != null) {
+            clock.setLimits(SearchClock.fixedTime(0));
+        }
+    }
+
+    private SearchResult awaitPonderSearch() {
+        try {
+            return ponderSearch.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return null;
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Ponder search failed", e.getCause());
+        } finally {
+            ponderSearch = null;
+            ponderClock = null;
+        }
+    }
+
+    // Result of the engine's last move; its principal variation holds the reply being pondered on
+    public SearchResult getLastResult() {
+        return lastResult;
+    }
+
+    public boolean isPondering() {
+        return ponderSearch != null;
+    }
+
+    // Replies that were predicted, and answered from the ponder search
+    public long getPonderHits() {
+        return ponderHits;
+    }
+
+    public long getPonderMisses() {
+        return ponderMisses;
+    }
+
+    @Override
+    public void close() {
+        stopPondering();
+        ponderThread.shutdown();
+    }
+}
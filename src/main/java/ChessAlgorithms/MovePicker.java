@@ -0,0 +1,206 @@
+package ChessAlgorithms;
+
+import chess.logic.Board;
+import chess.logic.Move;
+import chess.logic.MoveGenerator;
+
+/**
+ * Hands out the moves of one search node in stages, best guesses first: the hash move,
+ * captures that do not lose material (most valuable victim, least valuable attacker first),
+ * the two killer moves of the ply, quiet moves by history score, and finally losing captures
+ * and underpromotions. Later stages are only generated if the earlier ones did not produce a
+ * cutoff. Only legal moves are handed out. One picker is kept per ply and reused, so picking
+ * moves does not allocate.
+ *
+ * In quiescence mode only the non-losing captures and queen promotions are handed out;
+ * everything SEE marks as losing is pruned.
+ */
+public class MovePicker {
+    private static final int HASH_MOVE = 0;
+    private static final int GENERATE_CAPTURES = 1;
+    private static final int GOOD_CAPTURES = 2;
+    private static final int KILLERS = 3;
+    private static final int GENERATE_QUIETS = 4;
+    private static final int QUIETS = 5;
+    private static final int BAD_CAPTURES = 6;
+    private static final int DONE = 7;
+
+    private final int[] moves = new int[MoveGenerator.MAX_MOVES];
+    private final int[] scores = new int[MoveGenerator.MAX_MOVES];
+    // Captures that lose material, deferred until after the quiet moves
+    private final int[] badCaptures = new int[MoveGenerator.MAX_MOVES];
+    private Board board;
+    private int hashMove;
+    private int killer1;
+    private int killer2;
+    private int[] history;
+    private boolean capturesOnly;
+    private long pinned;
+    private long checkers;
+    private int stage;
+    private int index;
+    private int count;
+    private int badCount;
+
+    /**
+     * Prepares the picker for a new node.
+     * @param hashMove Move from the transposition table, or Move.NONE
+     * @param killers The two killer moves of this ply (entries may be Move.NONE)
+     * @param history Butterfly history of the side to move, indexed by from * 64 + to
+     */
+    public void init(Board board, int hashMove, int[] killers, int[] history) {
+        this.board = board;
+        this.pinned = MoveGenerator.pinnedPieces(board, board.getSideToMove());
+        this.checkers = MoveGenerator.checkers(board, board.getSideToMove());
+        this.hashMove = isLegal(hashMove) ? hashMove : Move.NONE;
+        this.killer1 = killers[0];
+        this.killer2 = killers[1];
+        this.history = history;
+        this.capturesOnly = false;
+        this.stage = HASH_MOVE;
+        this.index = 0;
+        this.count = 0;
+        this.badCount = 0;
+    }
+
+    // Prepares the picker for a quiescence node that is not in check
+    public void initQuiescence(Board board) {
+        this.board = board;
+        this.pinned = MoveGenerator.pinnedPieces(board, board.getSideToMove());
+        this.checkers = MoveGenerator.checkers(board, board.getSideToMove());
+        this.hashMove = Move.NONE;
+        this.killer1 = Move.NONE;
+        this.killer2 = Move.NONE;
+        this.capturesOnly = true;
+        this.stage = GENERATE_CAPTURES;
+        this.index = 0;
+        this.count = 0;
+        this.badCount = 0;
+    }
+
+    // Returns the next legal move, or Move.NONE when the node has no moves left
+    public int nextMove() {
+        while (true) {
+            switch (stage) {
+                case HASH_MOVE -> {
+                    stage = GENERATE_CAPTURES;
+                    if (hashMove != Move.NONE) {
+                        return hashMove;
+                    }
+                }
+                case GENERATE_CAPTURES -> {
+                    count = MoveGenerator.generateCaptures(board, board.getSideToMove(), moves, 0);
+                    for (int i = 0; i < count; i++) {
+                        scores[i] = captureScore(moves[i]);
+                    }
+                    sort();
+                    index = 0;
+                    stage = GOOD_CAPTURES;
+                }
+                case GOOD_CAPTURES -> {
+                    while (index < count) {
+                        int move = moves[index++];
+                        if (move == hashMove || !MoveGenerator.isLegal(board, move, pinned, checkers)) {
+                            continue;
+                        }
+                        if (isBadCapture(move)) {
+                            badCaptures[badCount++] = move;
+                            continue;
+                        }
+                        return move;
+                    }
+                    stage = capturesOnly ? DONE : KILLERS;
+                    index = 0;
+                }
+                case KILLERS -> {
+                    // index counts the killer slots already tried
+                    while (index < 2) {
+                        int killer = index++ == 0 ? killer1 : killer2;
+                        if (killer != hashMove && !Move.isCapture(killer) && !Move.isPromotion(killer)
+                                && isLegal(killer)) {
+                            return killer;
+                        }
+                    }
+                    stage = GENERATE_QUIETS;
+                }
+                case GENERATE_QUIETS -> {
+                    count = MoveGenerator.generateQuiets(board, board.getSideToMove(), moves, 0);
+                    for (int i = 0; i < count; i++) {
+                        scores[i] = history[Move.from(moves[i]) * 64 + Move.to(moves[i])];
+                    }
+                    sort();
+                    index = 0;
+                    stage = QUIETS;
+                }
+                case QUIETS -> {
+                    while (index < count) {
+                        int move = moves[index++];
+                        if (move != hashMove && move != killer1 && move != killer2
+                                && MoveGenerator.isLegal(board, move, pinned, checkers)) {
+                            return move;
+                        }
+                    }
+                    stage = BAD_CAPTURES;
+                    index = 0;
+                }
+                case BAD_CAPTURES -> {
+                    if (index < badCount) {
+                        return badCaptures[index++];
+                    }
+                    stage = DONE;
+                }
+                default -> {
+                    return Move.NONE;
+                }
+            }
+        }
+    }
+
+    public boolean inCheck() {
+        return checkers != 0;
+    }
+
+    // Hash and killer moves come from other positions and must be validated first
+    private boolean isLegal(int move) {
+        return MoveGenerator.isPseudoLegal(board, move) && MoveGenerator.isLegal(board, move, pinned, checkers);
+    }
+
+    // MVV-LVA: most valuable victim first, then least valuable attacker; queen promotions lead
+    private int captureScore(int move) {
+        int attacker = board.getPieceAt(Move.from(move)) % 6;
+        int victim = Move.flags(move) == Move.EN_PASSANT ? 0 : board.getPieceAt(Move.to(move)) % 6;
+        int score = Move.isCapture(move) ? StaticExchange.value(victim) * 8 - attacker : 0;
+        if (Move.isPromotion(move) && Move.promotionType(move) == 4) {
+            score += StaticExchange.value(4) * 8;
+        }
+        return score;
+    }
+
+    // Losing captures and underpromotions are tried after the quiet moves
+    private boolean isBadCapture(int move) {
+        if (Move.isPromotion(move)) {
+            return Move.promotionType(move) != 4;
+        }
+        // Taking a piece worth at least as much as the attacker can never lose material
+        int attacker = board.getPieceAt(Move.from(move)) % 6;
+        int victim = Move.flags(move) == Move.EN_PASSANT ? 0 : board.getPieceAt(Move.to(move)) % 6;
+        return StaticExchange.value(victim) < StaticExchange.value(attacker)
+                && !StaticExchange.isAtLeast(board, move, 0);
+    }
+
+    // Insertion sort by descending score; move lists are short and often nearly ordered
+    private void sort() {
+        for (int i = 1; i < count; i++) {
+            int move = moves[i];
+            int score = scores[i];
+            int j = i - 1;
+            while (j >= 0 && scores[j] < score) {
+                moves[j + 1] = moves[j];
+                scores[j + 1] = scores[j];
+                j--;
+            }
+            moves[j + 1] = move;
+            scores[j + 1] = score;
+        }
+    }
+}
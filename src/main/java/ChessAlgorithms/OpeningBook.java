@@ -0,0 +1,127 @@
+package ChessAlgorithms;
+
+import chess.logic.Board;
+import chess.logic.Move;
+import chess.logic.MoveGenerator;
+
+import java.io.DataOutput;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.random.RandomGenerator;
+
+/**
+ * Read-only opening book in a Polyglot-style binary file: fixed-size big-endian entries
+ * sorted by Zobrist key (unsigned), with the entries of one position next to each other.
+ * The file is memory-mapped, so lookups are a binary search over the page cache and the
+ * book takes no heap however large it is. Lookups only use absolute reads and are safe
+ * from several threads.
+ *
+ * Entry layout (24 bytes): key 8, move 2, weight 2, wins 4, draws 4, losses 4. Keys are this
+ * engine's Zobrist keys, not Polyglot's, and moves use the engine's packed format.
+ */
+public class OpeningBook {
+    public static final int ENTRY_BYTES = 24;
+
+    private final MappedByteBuffer buffer;
+    private final int entries;
+
+    private OpeningBook(MappedByteBuffer buffer) {
+        this.buffer = buffer;
+        this.entries = buffer.capacity() / ENTRY_BYTES;
+    }
+
+    /**
+     * Maps a book file written by writeEntry; the file is not read until positions are probed.
+     * @throws IOException if the file cannot be mapped or is not a whole number of entries
+     */
+    public static OpeningBook open(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size % ENTRY_BYTES != 0 || size > Integer.MAX_VALUE) {
+                throw new IOException("Not an opening book: " + path);
+            }
+            // The mapping stays valid after the channel is closed
+            return new OpeningBook(channel.map(FileChannel.MapMode.READ_ONLY, 0, size));
+        }
+    }
+
+    // Appends one entry; entries must be written sorted by Long.compareUnsigned of their keys
+    public static void writeEntry(DataOutput out, long key, int move, int weight, int wins, int draws, int losses)
+            throws IOException {
+        out.writeLong(key);
+        out.writeShort(move);
+        out.writeShort(weight);
+        out.writeInt(wins);
+        out.writeInt(draws);
+        out.writeInt(losses);
+    }
+
+    public int size() {
+        return entries;
+    }
+
+    // Book moves of the position, most played first; empty when the position is not in the book
+    public List<BookMove> probe(Board board) {
+        long key = board.getZobristKey();
+        List<BookMove> moves = new ArrayList<>();
+        for (int i = firstEntry(key); i < entries && keyAt(i) == key; i++) {
+            int offset = i * ENTRY_BYTES;
+            int move = buffer.getShort(offset + 8) & 0xFFFF;
+            // A different position with the same key would hand out moves that are not legal here
+            if (!MoveGenerator.isPseudoLegal(board, move) || !MoveGenerator.isLegal(board, move)) {
+                continue;
+            }
+            moves.add(new BookMove(move, buffer.getShort(offset + 10) & 0xFFFF,
+                    buffer.getInt(offset + 12), buffer.getInt(offset + 16), buffer.getInt(offset + 20)));
+        }
+        moves.sort((a, b) -> Integer.compare(b.getWeight(), a.getWeight()));
+        return moves;
+    }
+
+    /**
+     * Picks a book move at random in proportion to the weights, so play varies between games.
+     * @return The move, or Move.NONE if the position has no book move with a non-zero weight
+     */
+    public int pickMove(Board board, RandomGenerator random) {
+        List<BookMove> moves = probe(board);
+        int total = 0;
+        for (BookMove move : moves) {
+            total += move.getWeight();
+        }
+        if (total == 0) {
+            return Move.NONE;
+        }
+        int choice = random.nextInt(total);
+        for (BookMove move : moves) {
+            choice -= move.getWeight();
+            if (choice < 0) {
+                return move.move();
+            }
+        }
+        return Move.NONE;
+    }
+
+    // Index of the first entry whose key is not below the given one
+    private int firstEntry(long key) {
+        int low = 0;
+        int high = entries;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (Long.compareUnsigned(keyAt(middle), key) < 0) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    private long keyAt(int index) {
+        return buffer.getLong(index * ENTRY_BYTES);
+    }
+}
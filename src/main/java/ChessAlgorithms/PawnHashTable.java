@@ -0,0 +1,50 @@
+package ChessAlgorithms;
+
+import java.util.Arrays;
+
+/**
+ * Cache of pawn structure scores keyed by the board's pawn key. Pawns move rarely compared
+ * to the other pieces, so almost every evaluation finds its pawn terms here. Like the
+ * transposition table, the key is stored XORed with the score, so an entry torn by a
+ * concurrent write reads as a miss.
+ */
+public class PawnHashTable {
+    // Returned by probe on a miss; packed pawn scores never come near it
+    public static final long NO_ENTRY = Long.MIN_VALUE;
+
+    private final long[] keys;
+    private final long[] scores;
+    private final int mask;
+
+    /**
+     * @param entries Number of entries; rounded down to a power of two
+     */
+    public PawnHashTable(int entries) {
+        if (entries < 1) {
+            throw new IllegalArgumentException("Pawn hash must have at least one entry: " + entries);
+        }
+        int size = Integer.highestOneBit(entries);
+        keys = new long[size];
+        scores = new long[size];
+        mask = size - 1;
+    }
+
+    // Packed score for the pawn key, or NO_ENTRY
+    public long probe(long pawnKey) {
+        int index = (int) pawnKey & mask;
+        long score = scores[index];
+        // An empty slot reads as key 0 with score 0, which is right for a board without pawns
+        return (keys[index] ^ score) == pawnKey ? score : NO_ENTRY;
+    }
+
+    public void store(long pawnKey, long score) {
+        int index = (int) pawnKey & mask;
+        scores[index] = score;
+        keys[index] = pawnKey ^ score;
+    }
+
+    public void clear() {
+        Arrays.fill(keys, 0L);
+        Arrays.fill(scores, 0L);
+    }
+}
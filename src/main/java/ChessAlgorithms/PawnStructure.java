@@ -0,0 +1,148 @@
+package ChessAlgorithms;
+
+import chess.logic.Attacks;
+import chess.logic.Board;
+
+/**
+ * Pawn structure and pawn shield terms of the evaluation, computed with precomputed file and
+ * span masks so each pawn costs a few AND operations. Pawn structure scores depend on the
+ * pawns alone and are returned packed (middlegame in the high half, endgame in the low half)
+ * so they can be cached in a PawnHashTable. All scores are white minus black.
+ */
+public final class PawnStructure {
+    private static final int DOUBLED_MIDGAME = -10;
+    private static final int DOUBLED_ENDGAME = -25;
+    private static final int ISOLATED_MIDGAME = -12;
+    private static final int ISOLATED_ENDGAME = -15;
+    private static final int BACKWARD_MIDGAME = -8;
+    private static final int BACKWARD_ENDGAME = -10;
+    // Passed pawn bonus by rank counted from the pawn's own side
+    private static final int[] PASSED_MIDGAME = {0, 5, 10, 15, 25, 45, 70, 0};
+    private static final int[] PASSED_ENDGAME = {0, 10, 17, 30, 55, 90, 140, 0};
+
+    // Pawn shield penalty by distance of the nearest own pawn in front of the king, per file
+    private static final int[] SHIELD_PENALTY = {0, 0, -10, -20, -25};
+    private static final int HALF_OPEN_FILE_PENALTY = -15;
+    private static final int OPEN_FILE_PENALTY = -25;
+
+    private static final long[] FILES = new long[8];
+    private static final long[] ADJACENT_FILES = new long[8];
+    // Squares in front of a square on its own file, per color
+    private static final long[][] FORWARD = new long[2][64];
+    // Squares in front of a square on its own and the adjacent files: enemy pawns there stop a passer
+    private static final long[][] PASSED_SPAN = new long[2][64];
+    // Squares beside and behind a square on the adjacent files: own pawns there can still support it
+    private static final long[][] SUPPORT_SPAN = new long[2][64];
+
+    static {
+        for (int file = 0; file < 8; file++) {
+            FILES[file] = 0x0101010101010101L << file;
+        }
+        for (int file = 0; file < 8; file++) {
+            ADJACENT_FILES[file] = (file > 0 ? FILES[file - 1] : 0) | (file < 7 ? FILES[file + 1] : 0);
+        }
+        for (int square = 0; square < 64; square++) {
+            int rank = square >>> 3;
+            // Ranks strictly above and strictly below this square's rank
+            long above = rank == 7 ? 0 : -1L << ((rank + 1) * 8);
+            long below = rank == 0 ? 0 : -1L >>> ((8 - rank) * 8);
+            long file = FILES[square & 7];
+            long adjacent = ADJACENT_FILES[square & 7];
+
+            FORWARD[Board.WHITE][square] = file & above;
+            FORWARD[Board.BLACK][square] = file & below;
+            PASSED_SPAN[Board.WHITE][square] = (file | adjacent) & above;
+            PASSED_SPAN[Board.BLACK][square] = (file | adjacent) & below;
+            SUPPORT_SPAN[Board.WHITE][square] = adjacent & ~above;
+            SUPPORT_SPAN[Board.BLACK][square] = adjacent & ~below;
+        }
+    }
+
+    private PawnStructure() {
+    }
+
+    // Doubled, isolated, backward and passed pawns, packed with pack()
+    public static long evaluate(Board board) {
+        long white = board.getBitboard(Board.WHITE_PAWN);
+        long black = board.getBitboard(Board.BLACK_PAWN);
+        long whiteScore = evaluateSide(Board.WHITE, white, black);
+        long blackScore = evaluateSide(Board.BLACK, black, white);
+        return pack(midgame(whiteScore) - midgame(blackScore), endgame(whiteScore) - endgame(blackScore));
+    }
+
+    // Middlegame pawn shield and open file penalties around both kings
+    public static int kingSafety(Board board) {
+        long white = board.getBitboard(Board.WHITE_PAWN);
+        long black = board.getBitboard(Board.BLACK_PAWN);
+        return kingSafety(Board.WHITE, board.getKingSquare(Board.WHITE), white, black)
+                - kingSafety(Board.BLACK, board.getKingSquare(Board.BLACK), black, white);
+    }
+
+    public static long pack(int midgame, int endgame) {
+        return ((long) midgame << 32) | (endgame & 0xFFFFFFFFL);
+    }
+
+    public static int midgame(long score) {
+        return (int) (score >> 32);
+    }
+
+    public static int endgame(long score) {
+        return (int) score;
+    }
+
+    private static long evaluateSide(int color, long own, long enemy) {
+        int midgame = 0;
+        int endgame = 0;
+        for (long pawns = own; pawns != 0; pawns &= pawns - 1) {
+            int square = Long.numberOfTrailingZeros(pawns);
+            int file = square & 7;
+
+            boolean doubled = (own & FORWARD[color][square]) != 0;
+            boolean isolated = (own & ADJACENT_FILES[file]) == 0;
+            if (doubled) {
+                midgame += DOUBLED_MIDGAME;
+                endgame += DOUBLED_ENDGAME;
+            }
+            if (isolated) {
+                midgame += ISOLATED_MIDGAME;
+                endgame += ISOLATED_ENDGAME;
+            } else if ((own & SUPPORT_SPAN[color][square]) == 0) {
+                // No neighbour can come up to defend it, and an enemy pawn guards the square in front
+                int stop = color == Board.WHITE ? square + 8 : square - 8;
+                if (stop >= 0 && stop < 64 && (Attacks.pawnAttacks(color, stop) & enemy) != 0) {
+                    midgame += BACKWARD_MIDGAME;
+                    endgame += BACKWARD_ENDGAME;
+                }
+            }
+            // Only the front pawn of a doubled pair counts as passed
+            if (!doubled && (enemy & PASSED_SPAN[color][square]) == 0) {
+                int rank = color == Board.WHITE ? square >>> 3 : 7 - (square >>> 3);
+                midgame += PASSED_MIDGAME[rank];
+                endgame += PASSED_ENDGAME[rank];
+            }
+        }
+        return pack(midgame, endgame);
+    }
+
+    private static int kingSafety(int color, int kingSquare, long own, long enemy) {
+        if (kingSquare == Board.NO_SQUARE) {
+            return 0;
+        }
+        int kingFile = kingSquare & 7;
+        int score = 0;
+        for (int file = Math.max(0, kingFile - 1); file <= Math.min(7, kingFile + 1); file++) {
+            int square = (kingSquare & ~7) | file;
+            long shield = own & FORWARD[color][square];
+            if (shield != 0) {
+                int nearest = color == Board.WHITE ? Long.numberOfTrailingZeros(shield) : 63 - Long.numberOfLeadingZeros(shield);
+                int distance = Math.abs((nearest >>> 3) - (kingSquare >>> 3));
+                score += SHIELD_PENALTY[Math.min(distance, SHIELD_PENALTY.length - 1)];
+            } else {
+                score += SHIELD_PENALTY[SHIELD_PENALTY.length - 1];
+                // A file without own pawns next to the king is a highway for enemy rooks
+                score += (enemy & FILES[file]) == 0 ? OPEN_FILE_PENALTY : HALF_OPEN_FILE_PENALTY;
+            }
+        }
+        return score;
+    }
+}
@@ -0,0 +1,84 @@
+package ChessAlgorithms;
+
+/**
+ * Time budget of one search. The soft limit decides whether another iterative deepening
+ * iteration is started; the hard limit aborts the iteration in progress. Both are measured
+ * from the moment the clock is created, and may be replaced while the search runs.
+ */
+public class SearchClock {
+    // Moves assumed to remain in the game when the time control does not say
+    private static final int DEFAULT_MOVES_TO_GO = 30;
+    // Time kept back per move for move transmission and GC pauses
+    private static final long MOVE_OVERHEAD_MILLIS = 30;
+
+    private final long startNanos;
+    // Read by the searching thread, replaced by another one through setLimits
+    private volatile long softLimitMillis;
+    private volatile long hardLimitMillis;
+
+    private SearchClock(long softLimitMillis, long hardLimitMillis) {
+        this.startNanos = System.nanoTime();
+        this.softLimitMillis = softLimitMillis;
+        this.hardLimitMillis = hardLimitMillis;
+    }
+
+    public static SearchClock unlimited() {
+        return new SearchClock(Long.MAX_VALUE, Long.MAX_VALUE);
+    }
+
+    // A fixed budget; no new iteration is started after half of it, since it would rarely finish
+    public static SearchClock fixedTime(long millis) {
+        return new SearchClock(millis / 2, millis);
+    }
+
+    /**
+     * Budget for one move from the game clock.
+     * @param remainingMillis Time left on the side to move's clock
+     * @param incrementMillis Time added after every move
+     * @param movesToGo Moves until the next time control, or 0 if unknown
+     */
+    public static SearchClock fromGameClock(long remainingMillis, long incrementMillis, int movesToGo) {
+        long available = Math.max(1, remainingMillis - MOVE_OVERHEAD_MILLIS);
+        int moves = movesToGo > 0 ? movesToGo : DEFAULT_MOVES_TO_GO;
+
+        long soft = Math.min(available / moves + incrementMillis * 3 / 4, available);
+        // The hard limit lets a difficult iteration finish, but never spends more than a third of the clock
+        long hard = Math.max(soft, Math.min(soft * 4, available / 3 + incrementMillis));
+        return new SearchClock(soft, Math.min(hard, available));
+    }
+
+    // A new clock with this clock's limits, neither of them above maxMillis
+    public SearchClock capped(long maxMillis) {
+        return new SearchClock(Math.min(softLimitMillis, maxMillis), Math.min(hardLimitMillis, maxMillis));
+    }
+
+    /**
+     * Gives a running search the limits of another clock, still measured from this clock's
+     * start: a search that began pondering with unlimited time gets the budget of its move on a
+     * ponder hit, and stops at once if it has already used it.
+     */
+    public void setLimits(SearchClock limits) {
+        softLimitMillis = limits.softLimitMillis;
+        hardLimitMillis = limits.hardLimitMillis;
+    }
+
+    public long elapsedMillis() {
+        return (System.nanoTime() - startNanos) / 1_000_000;
+    }
+
+    public boolean softLimitReached() {
+        return elapsedMillis() >= softLimitMillis;
+    }
+
+    public boolean hardLimitReached() {
+        return elapsedMillis() >= hardLimitMillis;
+    }
+
+    public long getSoftLimitMillis() {
+        return softLimitMillis;
+    }
+
+    public long getHardLimitMillis() {
+        return hardLimitMillis;
+    }
+}
@@ -0,0 +1,103 @@
+package ChessAlgorithms;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Process-wide totals over every finished search, for monitoring. Each search adds its result
+ * once when it returns, so recording costs nothing per node and never contends between
+ * concurrent searches.
+ */
+public final class SearchMetrics {
+    private static final int MAX_DEPTH = 64;
+
+    private static final LongAdder SEARCHES = new LongAdder();
+    private static final LongAdder NODES = new LongAdder();
+    private static final LongAdder QUIESCENCE_NODES = new LongAdder();
+    private static final LongAdder TIME_MILLIS = new LongAdder();
+    private static final LongAdder BETA_CUTOFFS = new LongAdder();
+    private static final LongAdder FIRST_MOVE_CUTOFFS = new LongAdder();
+    private static final LongAdder HASH_PROBES = new LongAdder();
+    private static final LongAdder HASH_HITS = new LongAdder();
+    private static final LongAdder HASH_COLLISIONS = new LongAdder();
+    private static final LongAdder TABLEBASE_HITS = new LongAdder();
+    private static final LongAccumulator MAX_SELECTIVE_DEPTH = new LongAccumulator(Math::max, 0);
+    // Completed iterations, nodes and time per depth
+    private static final LongAdder[] DEPTH_COUNT = newAdders();
+    private static final LongAdder[] DEPTH_NODES = newAdders();
+    private static final LongAdder[] DEPTH_MILLIS = newAdders();
+
+    private SearchMetrics() {
+    }
+
+    private static LongAdder[] newAdders() {
+        LongAdder[] adders = new LongAdder[MAX_DEPTH + 1];
+        for (int i = 0; i < adders.length; i++) {
+            adders[i] = new LongAdder();
+        }
+        return adders;
+    }
+
+    public static void record(SearchResult result) {
+        SearchStats stats = result.getStats();
+        SEARCHES.increment();
+        NODES.add(result.getNodes());
+        QUIESCENCE_NODES.add(stats.getQuiescenceNodes());
+        TIME_MILLIS.add(result.getTimeMillis());
+        BETA_CUTOFFS.add(stats.getBetaCutoffs());
+        FIRST_MOVE_CUTOFFS.add(stats.getFirstMoveCutoffs());
+        HASH_PROBES.add(stats.getHashProbes());
+        HASH_HITS.add(stats.getHashHits());
+        HASH_COLLISIONS.add(stats.getHashCollisions());
+        TABLEBASE_HITS.add(stats.getTablebaseHits());
+        MAX_SELECTIVE_DEPTH.accumulate(stats.getSelectiveDepth());
+        for (DepthTiming iteration : result.getIterations()) {
+            int depth = Math.min(iteration.depth(), MAX_DEPTH);
+            DEPTH_COUNT[depth].increment();
+            DEPTH_NODES[depth].add(iteration.nodes());
+            DEPTH_MILLIS[depth].add(iteration.timeMillis());
+        }
+    }
+
+    // Current totals as JSON-ready maps; counters keep running while this is read
+    public static Map<String, Object> snapshot() {
+        long nodes = NODES.sum();
+        long millis = TIME_MILLIS.sum();
+        long cutoffs = BETA_CUTOFFS.sum();
+        long probes = HASH_PROBES.sum();
+
+        Map<String, Object> metrics = new LinkedHashMap<>();
+        metrics.put("searches", SEARCHES.sum());
+        metrics.put("nodes", nodes);
+        metrics.put("quiescenceNodes", QUIESCENCE_NODES.sum());
+        metrics.put("timeMillis", millis);
+        metrics.put("nps", millis == 0 ? 0 : nodes * 1000 / millis);
+        metrics.put("betaCutoffs", cutoffs);
+        metrics.put("firstMoveCutoffRate", cutoffs == 0 ? 0 : (double) FIRST_MOVE_CUTOFFS.sum() / cutoffs);
+        metrics.put("hashProbes", probes);
+        metrics.put("hashHitRate", probes == 0 ? 0 : (double) HASH_HITS.sum() / probes);
+        metrics.put("hashCollisions", HASH_COLLISIONS.sum());
+        metrics.put("tablebaseHits", TABLEBASE_HITS.sum());
+        metrics.put("maxSelectiveDepth", MAX_SELECTIVE_DEPTH.get());
+
+        List<Map<String, Object>> depths = new ArrayList<>();
+        for (int depth = 1; depth <= MAX_DEPTH; depth++) {
+            long count = DEPTH_COUNT[depth].sum();
+            if (count == 0) {
+                continue;
+            }
+            Map<String, Object> entry = new LinkedHashMap<>();
+            entry.put("depth", depth);
+            entry.put("iterations", count);
+            entry.put("averageNodes", DEPTH_NODES[depth].sum() / count);
+            entry.put("averageMillis", (double) DEPTH_MILLIS[depth].sum() / count);
+            depths.add(entry);
+        }
+        metrics.put("depths", depths);
+        return metrics;
+    }
+}
@@ -0,0 +1,106 @@
+package ChessAlgorithms;
+
+import chess.logic.Move;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Outcome of a search: the principal variation of the deepest completed iteration, its score
+ * from the side to move's point of view and the work it took, with counters and the timing
+ * of every iteration. Getters give the API's JSON shape.
+ */
+public class SearchResult {
+    private final int depth;
+    private final int score;
+    private final int[] pv;
+    private final long nodes;
+    private final long timeMillis;
+    private final SearchStats stats;
+    private final List<DepthTiming> iterations;
+
+    public SearchResult(int depth, int score, int[] pv, long nodes, long timeMillis) {
+        this(depth, score, pv, nodes, timeMillis, new SearchStats(), List.of());
+    }
+
+    public SearchResult(int depth, int score, int[] pv, long nodes, long timeMillis,
+                        SearchStats stats, List<DepthTiming> iterations) {
+        this.depth = depth;
+        this.score = score;
+        this.pv = pv;
+        this.nodes = nodes;
+        this.timeMillis = timeMillis;
+        this.stats = stats;
+        this.iterations = iterations;
+    }
+
+    public int getDepth() {
+        return depth;
+    }
+
+    // Centipawns, or a mate score when isMate() is true
+    public int getScore() {
+        return score;
+    }
+
+    public boolean isMate() {
+        return Math.abs(score) >= EngineCalculations.MATE_BOUND;
+    }
+
+    // Moves until mate: positive when the side to move mates, negative when it gets mated, 0 if no mate
+    public int getMateIn() {
+        if (!isMate()) {
+            return 0;
+        }
+        return score > 0 ? (EngineCalculations.MATE_SCORE - score + 1) / 2 : -(EngineCalculations.MATE_SCORE + score) / 2;
+    }
+
+    // Best move in "e2-e4" form, or "" when the position has no legal moves
+    public String getBestMove() {
+        return pv.length == 0 ? "" : Move.toString(pv[0]);
+    }
+
+    public int bestMove() {
+        return pv.length == 0 ? Move.NONE : pv[0];
+    }
+
+    public List<String> getPv() {
+        List<String> moves = new ArrayList<>(pv.length);
+        for (int move : pv) {
+            moves.add(Move.toString(move));
+        }
+        return moves;
+    }
+
+    public int[] pvMoves() {
+        return pv.clone();
+    }
+
+    public long getNodes() {
+        return nodes;
+    }
+
+    public long getTimeMillis() {
+        return timeMillis;
+    }
+
+    // Nodes per second over the whole search, or 0 if it was too quick to time
+    public long getNps() {
+        return timeMillis == 0 ? 0 : nodes * 1000 / timeMillis;
+    }
+
+    public SearchStats getStats() {
+        return stats;
+    }
+
+    public List<DepthTiming> getIterations() {
+        return iterations;
+    }
+
+    @Override
+    public String toString() {
+        String scoreText = isMate() ? "mate " + getMateIn() : "cp " + score;
+        return "depth " + depth + " score " + scoreText + " nodes " + nodes + " time " + timeMillis
+                + " nps " + getNps() + " pv " + String.join(" ", getPv());
+    }
+}
@@ -0,0 +1,97 @@
+package ChessAlgorithms;
+
+/**
+ * Counters of one search, kept by the searching thread without synchronisation so they can
+ * stay on in production. Nodes are counted by the engine itself; these break them down.
+ * Getters give the API's JSON shape.
+ */
+public class SearchStats {
+    long quiescenceNodes;
+    long betaCutoffs;
+    long firstMoveCutoffs;
+    long hashProbes;
+    long hashHits;
+    long hashCollisions;
+    long tablebaseHits;
+    int selectiveDepth;
+
+    void reset() {
+        quiescenceNodes = 0;
+        betaCutoffs = 0;
+        firstMoveCutoffs = 0;
+        hashProbes = 0;
+        hashHits = 0;
+        hashCollisions = 0;
+        tablebaseHits = 0;
+        selectiveDepth = 0;
+    }
+
+    // Adds the counters of a helper thread's search
+    void add(SearchStats other) {
+        quiescenceNodes += other.quiescenceNodes;
+        betaCutoffs += other.betaCutoffs;
+        firstMoveCutoffs += other.firstMoveCutoffs;
+        hashProbes += other.hashProbes;
+        hashHits += other.hashHits;
+        hashCollisions += other.hashCollisions;
+        tablebaseHits += other.tablebaseHits;
+        selectiveDepth = Math.max(selectiveDepth, other.selectiveDepth);
+    }
+
+    SearchStats copy() {
+        SearchStats copy = new SearchStats();
+        copy.add(this);
+        return copy;
+    }
+
+    public long getQuiescenceNodes() {
+        return quiescenceNodes;
+    }
+
+    public long getBetaCutoffs() {
+        return betaCutoffs;
+    }
+
+    public long getFirstMoveCutoffs() {
+        return firstMoveCutoffs;
+    }
+
+    // Share of beta cutoffs caused by the first move searched; a measure of move ordering
+    public double getFirstMoveCutoffRate() {
+        return betaCutoffs == 0 ? 0 : (double) firstMoveCutoffs / betaCutoffs;
+    }
+
+    public long getHashProbes() {
+        return hashProbes;
+    }
+
+    public long getHashHits() {
+        return hashHits;
+    }
+
+    // Misses on a bucket already filled by other positions
+    public long getHashCollisions() {
+        return hashCollisions;
+    }
+
+    public double getHashHitRate() {
+        return hashProbes == 0 ? 0 : (double) hashHits / hashProbes;
+    }
+
+    // Nodes answered by the endgame tables
+    public long getTablebaseHits() {
+        return tablebaseHits;
+    }
+
+    // Deepest ply reached, quiescence included
+    public int getSelectiveDepth() {
+        return selectiveDepth;
+    }
+
+    @Override
+    public String toString() {
+        return "seldepth " + selectiveDepth + " qnodes " + quiescenceNodes + " cutoffs " + betaCutoffs
+                + " first " + firstMoveCutoffs + " hash " + hashHits + "/" + hashProbes + " collisions " + hashCollisions
+                + " tbhits " + tablebaseHits;
+    }
+}
@@ -0,0 +1,137 @@
+package ChessAlgorithms;
+
+import chess.logic.Attacks;
+import chess.logic.Board;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Read-only access to the endgame tables written by TablebaseGenerator. Every table file in
+ * the directory is memory-mapped, so a probe is a table lookup in the page cache and the
+ * tables take no heap. Probes only use absolute reads and are safe from several threads.
+ */
+public class Tablebase {
+    // Returned by probe when the position is not covered by any table
+    public static final int UNKNOWN = -1;
+
+    private final Map<String, MappedByteBuffer> tables;
+    private final Map<String, TablebaseIndex> indexes;
+
+    private Tablebase(Map<String, MappedByteBuffer> tables, Map<String, TablebaseIndex> indexes) {
+        this.tables = tables;
+        this.indexes = indexes;
+    }
+
+    /**
+     * Maps every table file in the directory; files with unknown names or the wrong size are skipped.
+     * @throws IOException if the directory cannot be listed or a table cannot be mapped
+     */
+    public static Tablebase open(Path directory) throws IOException {
+        Map<String, MappedByteBuffer> tables = new HashMap<>();
+        Map<String, TablebaseIndex> indexes = new HashMap<>();
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, "*" + TablebaseGenerator.FILE_EXTENSION)) {
+            for (Path file : files) {
+                String name = file.getFileName().toString();
+                String signature = name.substring(0, name.length() - TablebaseGenerator.FILE_EXTENSION.length());
+                TablebaseIndex index;
+                try {
+                    index = TablebaseIndex.forSignature(signature);
+                } catch (IllegalArgumentException e) {
+                    continue;
+                }
+                try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+                    if (channel.size() != index.size) {
+                        continue;
+                    }
+                    tables.put(signature, channel.map(FileChannel.MapMode.READ_ONLY, 0, index.size));
+                    indexes.put(signature, index);
+                }
+            }
+        }
+        return new Tablebase(tables, indexes);
+    }
+
+    public int size() {
+        return tables.size();
+    }
+
+    // Whether the position has few enough pieces to be looked up, and no castling or en passant capture
+    public static boolean isCandidate(Board board) {
+        return Long.bitCount(board.getOccupancy(Board.BOTH)) <= TablebaseIndex.MAX_PIECES
+                && board.getCastlingRights() == 0 && !canCaptureEnPassant(board);
+    }
+
+    // The board keeps the en passant square after every double push, capturable or not
+    private static boolean canCaptureEnPassant(Board board) {
+        int square = board.getEnPassantSquare();
+        if (square == Board.NO_SQUARE) {
+            return false;
+        }
+        int side = board.getSideToMove();
+        long pawns = board.getBitboard(side == Board.WHITE ? Board.WHITE_PAWN : Board.BLACK_PAWN);
+        return (Attacks.pawnAttacks(side ^ 1, square) & pawns) != 0;
+    }
+
+    /**
+     * Looks the position up.
+     * @return 0 for a draw, the distance to mate in plies plus one (odd distances win for the
+     * side to move, even ones lose), or UNKNOWN if no table covers the position
+     */
+    public int probe(Board board) {
+        return probe(board, new ProbeBuffers());
+    }
+
+    // As probe(Board), with the caller's buffers so that probes inside the search allocate nothing
+    int probe(Board board, ProbeBuffers buffers) {
+        if (!isCandidate(board)) {
+            return UNKNOWN;
+        }
+        int count = 0;
+        int[] pieces = buffers.pieces;
+        int[] squares = buffers.squares;
+        for (long occupied = board.getOccupancy(Board.BOTH); occupied != 0; occupied &= occupied - 1) {
+            int square = Long.numberOfTrailingZeros(occupied);
+            pieces[count] = board.getPieceAt(square);
+            squares[count++] = square;
+        }
+        if (count == 2) {
+            return 0; // Bare kings
+        }
+
+        TablebaseIndex.Placement placement = buffers.placement;
+        TablebaseIndex.locate(count, pieces, squares, board.getSideToMove(), placement);
+        MappedByteBuffer table = tables.get(placement.signature);
+        if (table == null) {
+            return UNKNOWN;
+        }
+        return table.get(indexes.get(placement.signature).index(placement.side, placement.squares)) & 0xFF;
+    }
+
+    /**
+     * Converts a probe result into a search score for the side to move.
+     * @param ply Distance of the position from the root, so mates are scored like the search does
+     */
+    public static int score(int value, int ply) {
+        if (value == 0) {
+            return 0;
+        }
+        int distance = value - 1;
+        int mate = EngineCalculations.MATE_SCORE - ply - distance;
+        return distance % 2 == 1 ? mate : -mate;
+    }
+
+    // Working space of one probing thread
+    static final class ProbeBuffers {
+        private final int[] pieces = new int[TablebaseIndex.MAX_PIECES];
+        private final int[] squares = new int[TablebaseIndex.MAX_PIECES];
+        private final TablebaseIndex.Placement placement = new TablebaseIndex.Placement();
+    }
+}
@@ -0,0 +1,575 @@
+package ChessAlgorithms;
+
+import chess.logic.Attacks;
+import chess.logic.Board;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Offline generator of the endgame tables read by Tablebase, by retrograde analysis. Every
+ * position of a table is first scored from its own moves where it can be: checkmate,
+ * stalemate, or a capture or promotion into a smaller table that is generated first. Then,
+ * level by level in distance to mate, the positions one move before a lost position are
+ * marked won, and positions whose moves all lead to won positions are marked lost.
+ *
+ * Each table is a file named after its signature holding one byte per position: 0 for a
+ * draw, otherwise the distance to mate in plies plus one (odd distances are wins for the
+ * side to move, even ones losses). Castling and en passant rights are not part of the tables'
+ * positions, but a double push next to an enemy pawn is scored with the en passant reply:
+ * the position it leads to is solved a second time, with the capture among its moves.
+ *
+ * Usage: TablebaseGenerator [output directory] [signature...]; without signatures every
+ * table with up to four pieces is generated. Tables already in the directory are reused.
+ */
+public final class TablebaseGenerator {
+    private static final String DEFAULT_DIRECTORY = "database/tablebases";
+    public static final String FILE_EXTENSION = ".tb";
+
+    private static final int MAX_DISTANCE = 254;
+    private static final int MAX_MOVES = 128;
+
+    private final Path directory;
+    private final Map<String, byte[]> tables = new HashMap<>();
+    private final Map<String, TablebaseIndex> indexes = new HashMap<>();
+
+    public TablebaseGenerator(Path directory) {
+        this.directory = directory;
+    }
+
+    public static void main(String[] args) throws IOException {
+        Path directory = Paths.get(args.length > 0 ? args[0] : DEFAULT_DIRECTORY);
+        Files.createDirectories(directory);
+        List<String> signatures = args.length > 1 ? Arrays.asList(args).subList(1, args.length) : allSignatures();
+
+        TablebaseGenerator generator = new TablebaseGenerator(directory);
+        for (String signature : signatures) {
+            generator.generate(signature);
+        }
+    }
+
+    // Every signature with three or four pieces, stronger side white
+    static List<String> allSignatures() {
+        String[] pieces = {"Q", "R", "B", "N", "P"};
+        Set<String> signatures = new LinkedHashSet<>();
+        for (int i = 0; i < pieces.length; i++) {
+            signatures.add("K" + pieces[i] + "vK");
+        }
+        for (int i = 0; i < pieces.length; i++) {
+            for (int j = i; j < pieces.length; j++) {
+                signatures.add("K" + pieces[i] + pieces[j] + "vK");
+            }
+        }
+        for (int i = 0; i < pieces.length; i++) {
+            for (int j = 0; j < pieces.length; j++) {
+                signatures.add(canonical("K" + pieces[i], "K" + pieces[j]));
+            }
+        }
+        return new ArrayList<>(signatures);
+    }
+
+    private static String canonical(String white, String black) {
+        int count = white.length() + black.length();
+        int[] pieces = new int[count];
+        for (int i = 0; i < white.length(); i++) {
+            pieces[i] = Board.pieceFromLetter(white.charAt(i));
+        }
+        for (int i = 0; i < black.length(); i++) {
+            pieces[white.length() + i] = Board.pieceFromLetter(Character.toLowerCase(black.charAt(i)));
+        }
+        TablebaseIndex.Placement placement = new TablebaseIndex.Placement();
+        TablebaseIndex.locate(count, pieces, new int[count], Board.WHITE, placement);
+        return placement.signature;
+    }
+
+    /**
+     * Generates a table and every table its captures and promotions lead to, writing each one
+     * to the output directory, unless it is there already.
+     * @return The table's positions
+     */
+    public byte[] generate(String signature) throws IOException {
+        byte[] table = tables.get(signature);
+        if (table != null) {
+            return table;
+        }
+        TablebaseIndex index = index(signature);
+        Path file = directory.resolve(signature + FILE_EXTENSION);
+        if (Files.exists(file) && Files.size(file) == index.size) {
+            table = Files.readAllBytes(file);
+        } else {
+            for (String dependency : dependencies(index)) {
+                generate(dependency);
+            }
+            long start = System.currentTimeMillis();
+            Solver solver = new Solver(index);
+            table = solver.solve();
+            Files.write(file, table);
+            System.out.println(signature + ": " + index.size + " positions, longest mate " + solver.longest
+                    + " plies, " + (System.currentTimeMillis() - start) + " ms");
+        }
+        tables.put(signature, table);
+        return table;
+    }
+
+    private TablebaseIndex index(String signature) {
+        return indexes.computeIfAbsent(signature, TablebaseIndex::forSignature);
+    }
+
+    // Tables reached by a capture, a promotion or both; bare kings need no table
+    private static Set<String> dependencies(TablebaseIndex index) {
+        Set<String> dependencies = new LinkedHashSet<>();
+        int[] pieces = index.pieces;
+        int count = pieces.length;
+        TablebaseIndex.Placement placement = new TablebaseIndex.Placement();
+        int[] reduced = new int[count];
+        int[] squares = new int[count];
+
+        for (int removed = 1; removed < count + 1; removed++) {
+            // removed == count means no capture
+            if (removed < count && pieces[removed] % 6 == 5) {
+                continue;
+            }
+            for (int promoted = 2; promoted <= count; promoted++) {
+                // promoted == count means no promotion
+                if (promoted < count && (pieces[promoted] % 6 != 0 || promoted == removed
+                        || (removed < count && Board.pieceColor(pieces[promoted]) == Board.pieceColor(pieces[removed])))) {
+                    continue;
+                }
+                if (removed == count && promoted == count) {
+                    continue;
+                }
+                for (int type = 1; type <= (promoted < count ? 4 : 1); type++) {
+                    int reducedCount = 0;
+                    for (int i = 0; i < count; i++) {
+                        if (i != removed) {
+                            reduced[reducedCount++] = i == promoted ? pieces[i] + type : pieces[i];
+                        }
+                    }
+                    if (reducedCount > 2) {
+                        TablebaseIndex.locate(reducedCount, reduced, squares, Board.WHITE, placement);
+                        dependencies.add(placement.signature);
+                    }
+                }
+            }
+        }
+        return dependencies;
+    }
+
+    /**
+     * Retrograde solution of one table. Nodes are position numbers; in tables with pawns of both
+     * colours, index.size + position stands for the position right after a double push that
+     * can be taken en passant, with that capture as an extra move.
+     */
+    private final class Solver {
+        private final TablebaseIndex index;
+        private final int[] pieces;
+        private final int count;
+        private final boolean enPassant;
+        // Values of the nodes, the first index.size of them as written to the file; 0 until resolved
+        private final byte[] result;
+        // Positions with a capture or promotion that draws or wins, so they can never be lost
+        private final BitSet safeExit;
+        // Longest mate the side to move suffers through its losing captures and promotions, plus one
+        private final byte[] exitLoss;
+        // Positions to resolve at each distance; even distances are losses, odd ones wins
+        private final int[][] levels = new int[MAX_DISTANCE + 1][];
+        private final int[] levelSizes = new int[MAX_DISTANCE + 1];
+        private int longest;
+
+        private final int[] squares = new int[TablebaseIndex.MAX_PIECES];
+        private final int[] moved = new int[TablebaseIndex.MAX_PIECES];
+        private final int[] saved = new int[TablebaseIndex.MAX_PIECES];
+        private final int[] exitPieces = new int[TablebaseIndex.MAX_PIECES];
+        private final int[] exitSquares = new int[TablebaseIndex.MAX_PIECES];
+        private final int[] captureSquares = new int[TablebaseIndex.MAX_PIECES];
+        private final TablebaseIndex.Placement placement = new TablebaseIndex.Placement();
+        private final int[] children = new int[MAX_MOVES];
+        private final int[] exits = new int[MAX_MOVES];
+        private int childCount;
+        private int exitCount;
+
+        Solver(TablebaseIndex index) {
+            this.index = index;
+            this.pieces = index.pieces;
+            this.count = pieces.length;
+            boolean whitePawn = false;
+            boolean blackPawn = false;
+            for (int piece : pieces) {
+                whitePawn |= piece == Board.WHITE_PAWN;
+                blackPawn |= piece == Board.BLACK_PAWN;
+            }
+            this.enPassant = whitePawn && blackPawn;
+            int nodes = enPassant ? 2 * index.size : index.size;
+            this.result = new byte[nodes];
+            this.safeExit = new BitSet(nodes);
+            this.exitLoss = new byte[nodes];
+        }
+
+        byte[] solve() {
+            for (int position = 0; position < index.size; position++) {
+                initialize(position);
+            }
+            for (int distance = 0; distance <= MAX_DISTANCE; distance++) {
+                for (int i = 0; i < levelSizes[distance]; i++) {
+                    resolve(levels[distance][i], distance);
+                }
+                levels[distance] = null;
+            }
+            return enPassant ? Arrays.copyOf(result, index.size) : result;
+        }
+
+        // Scores a position from its own moves: mates, stalemates and moves into other tables
+        private void initialize(int position) {
+            // Unused numbers and illegal positions stay 0 and are never probed
+            if (!index.isCanonical(position, squares)) {
+                return;
+            }
+            int side = index.decode(position, squares);
+            if (!isLegal(side)) {
+                return;
+            }
+            generateMoves(side);
+            if (childCount + exitCount == 0) {
+                if (isAttacked(kingSlot(side), side ^ 1, squares, -1)) {
+                    schedule(position, 0); // Checkmate
+                }
+                return; // Stalemate stays a draw
+            }
+            scoreExits(position);
+            // Right after a double push, the en passant captures are moves as well
+            if (enPassant && enPassantVictim(side, squares, true) >= 0) {
+                scoreExits(index.size + position);
+            }
+        }
+
+        // Schedules a node its captures and promotions decide, and notes those that keep it from being lost
+        private void scoreExits(int node) {
+            int bestWin = Integer.MAX_VALUE;
+            int worstLoss = 0;
+            boolean safe = false;
+            for (int i = 0; i < exitCount; i++) {
+                int value = exits[i];
+                if (value == 0) {
+                    safe = true;
+                } else if ((value - 1) % 2 == 0) {
+                    // The opponent is lost after this move
+                    bestWin = Math.min(bestWin, value);
+                    safe = true;
+                } else {
+                    worstLoss = Math.max(worstLoss, value);
+                }
+            }
+            if (safe) {
+                safeExit.set(node);
+            }
+            exitLoss[node] = (byte) worstLoss;
+
+            if (bestWin != Integer.MAX_VALUE) {
+                schedule(node, bestWin);
+            } else if (childCount == 0 && !safe) {
+                schedule(node, worstLoss);
+            }
+        }
+
+        // Fixes the node's value and passes it on to the nodes one move earlier
+        private void resolve(int node, int distance) {
+            if (result[node] != 0) {
+                return; // Already resolved at a shorter distance
+            }
+            result[node] = (byte) (distance + 1);
+            longest = Math.max(longest, distance);
+
+            boolean enPassantNode = node >= index.size;
+            int side = index.decode(enPassantNode ? node - index.size : node, squares);
+            int mover = side ^ 1;
+            // The mover's pawn the side to move could take en passant had it just made a double push
+            int victim = enPassant ? enPassantVictim(side, squares, false) : -1;
+            long occupied = occupancy(squares, -1);
+            for (int slot = 0; slot < count; slot++) {
+                int piece = pieces[slot];
+                if (Board.pieceColor(piece) != mover) {
+                    continue;
+                }
+                for (long origins = unmoveOrigins(piece, squares[slot], occupied); origins != 0; origins &= origins - 1) {
+                    int origin = Long.numberOfTrailingZeros(origins);
+                    // That double push leads to the en passant node, every other move to the plain one
+                    if ((slot == victim && Math.abs(origin - squares[slot]) == 16) != enPassantNode) {
+                        continue;
+                    }
+                    System.arraycopy(squares, 0, moved, 0, count);
+                    moved[slot] = origin;
+                    // The side that just moved was not allowed to leave its opponent in check
+                    if (isAttacked(kingSlot(side), mover, moved, -1)) {
+                        continue;
+                    }
+                    int predecessor = index.index(mover, moved);
+                    // The predecessor right after a double push has this move as well
+                    boolean afterDoublePush = enPassant && enPassantVictim(mover, moved, false) >= 0;
+                    passOn(predecessor, distance);
+                    if (afterDoublePush) {
+                        passOn(index.size + predecessor, distance);
+                    }
+                }
+            }
+        }
+
+        // A move of the node leads to a node resolved at the distance
+        private void passOn(int node, int distance) {
+            if (result[node] != 0) {
+                return;
+            }
+            if (distance % 2 == 0) {
+                schedule(node, distance + 1);
+            } else {
+                checkLost(node);
+            }
+        }
+
+        // Schedules a node as lost if every one of its moves leads to a node won for the opponent
+        private void checkLost(int node) {
+            if (safeExit.get(node)) {
+                return;
+            }
+            System.arraycopy(squares, 0, saved, 0, count);
+            int side = index.decode(node >= index.size ? node - index.size : node, squares);
+            generateMoves(side);
+            int longestChild = exitLoss[node] & 0xFF;
+            boolean lost = true;
+            for (int i = 0; i < childCount && lost; i++) {
+                int value = result[children[i]] & 0xFF;
+                lost = value != 0 && (value - 1) % 2 == 1;
+                longestChild = Math.max(longestChild, value);
+            }
+            System.arraycopy(saved, 0, squares, 0, count);
+            if (lost) {
+                schedule(node, longestChild);
+            }
+        }
+
+        private void schedule(int position, int distance) {
+            if (distance > MAX_DISTANCE) {
+                throw new IllegalStateException("Mate too long for " + index.signature);
+            }
+            if (levels[distance] == null) {
+                levels[distance] = new int[1024];
+            } else if (levelSizes[distance] == levels[distance].length) {
+                levels[distance] = Arrays.copyOf(levels[distance], levelSizes[distance] * 2);
+            }
+            levels[distance][levelSizes[distance]++] = position;
+        }
+
+        /**
+         * Lists the legal moves of the side to move in squares: nodes of this table in children,
+         * values of captures and promotions (as stored in their tables) in exits. En passant
+         * captures are left to the caller, which knows whether the last move was a double push.
+         */
+        private void generateMoves(int side) {
+            childCount = 0;
+            exitCount = 0;
+            long occupied = occupancy(squares, -1);
+            long own = 0;
+            for (int slot = 0; slot < count; slot++) {
+                if (Board.pieceColor(pieces[slot]) == side) {
+                    own |= 1L << squares[slot];
+                }
+            }
+
+            for (int slot = 0; slot < count; slot++) {
+                int piece = pieces[slot];
+                if (Board.pieceColor(piece) != side) {
+                    continue;
+                }
+                int from = squares[slot];
+                for (long targets = targets(piece, from, occupied, own); targets != 0; targets &= targets - 1) {
+                    int to = Long.numberOfTrailingZeros(targets);
+                    int captured = -1;
+                    for (int i = 0; i < count; i++) {
+                        if (i != slot && squares[i] == to) {
+                            captured = i;
+                        }
+                    }
+                    System.arraycopy(squares, 0, moved, 0, count);
+                    moved[slot] = to;
+                    if (isAttacked(kingSlot(side), side ^ 1, moved, captured)) {
+                        continue;
+                    }
+
+                    boolean promotion = piece % 6 == 0 && (to >>> 3 == 0 || to >>> 3 == 7);
+                    if (captured < 0 && !promotion) {
+                        int child = index.index(side ^ 1, moved);
+                        boolean doublePush = piece % 6 == 0 && Math.abs(to - from) == 16;
+                        children[childCount++] = doublePush && enPassant && enPassantVictim(side ^ 1, moved, false) >= 0
+                                ? index.size + child : child;
+                        continue;
+                    }
+                    for (int type = 1; type <= (promotion ? 4 : 1); type++) {
+                        exits[exitCount++] = exitValue(side ^ 1, captured, promotion ? slot : -1, type, moved);
+                    }
+                }
+            }
+        }
+
+        // Value of the position after a capture or promotion, looked up in the smaller table
+        private int exitValue(int side, int captured, int promoted, int type, int[] after) {
+            int remaining = 0;
+            for (int i = 0; i < count; i++) {
+                if (i != captured) {
+                    exitPieces[remaining] = i == promoted ? pieces[i] + type : pieces[i];
+                    exitSquares[remaining++] = after[i];
+                }
+            }
+            if (remaining == 2) {
+                return 0; // Bare kings
+            }
+            TablebaseIndex.locate(remaining, exitPieces, exitSquares, side, placement);
+            byte[] table = tables.get(placement.signature);
+            return table[index(placement.signature).index(placement.side, placement.squares)] & 0xFF;
+        }
+
+        /**
+         * Finds the opponent's pawn that side could take en passant if its last move had been a
+         * double push: a pawn on its fourth rank with the two squares behind it empty and a pawn
+         * of side next to it, where the capture leaves side's king safe.
+         * @param addExits Whether to add the values of the captures to exits
+         * @return The pawn's slot, or -1
+         */
+        private int enPassantVictim(int side, int[] placement, boolean addExits) {
+            int victimColor = side ^ 1;
+            int forward = victimColor == Board.WHITE ? 8 : -8;
+            long occupied = occupancy(placement, -1);
+            int victim = -1;
+            for (int slot = 0; slot < count; slot++) {
+                int square = placement[slot];
+                int passed = square - forward;
+                if (pieces[slot] % 6 != 0 || Board.pieceColor(pieces[slot]) != victimColor
+                        || square >>> 3 != (victimColor == Board.WHITE ? 3 : 4)
+                        || (occupied & (1L << passed | 1L << (passed - forward))) != 0) {
+                    continue;
+                }
+                for (int capturer = 0; capturer < count; capturer++) {
+                    int from = placement[capturer];
+                    if (pieces[capturer] % 6 != 0 || Board.pieceColor(pieces[capturer]) != side
+                            || from >>> 3 != square >>> 3 || Math.abs((from & 7) - (square & 7)) != 1) {
+                        continue;
+                    }
+                    System.arraycopy(placement, 0, captureSquares, 0, count);
+                    captureSquares[capturer] = passed;
+                    if (isAttacked(kingSlot(side), victimColor, captureSquares, slot)) {
+                        continue;
+                    }
+                    victim = slot;
+                    if (addExits) {
+                        exits[exitCount++] = exitValue(victimColor, slot, -1, 1, captureSquares);
+                    }
+                }
+            }
+            return victim;
+        }
+
+        // Squares the piece can move to: pushes and captures for pawns, attacks elsewhere
+        private long targets(int piece, int from, long occupied, long own) {
+            int type = piece % 6;
+            if (type != 0) {
+                return attacks(piece, from, occupied) & ~own;
+            }
+            int color = Board.pieceColor(piece);
+            int forward = color == Board.WHITE ? 8 : -8;
+            long targets = Attacks.pawnAttacks(color, from) & occupied & ~own;
+            int push = from + forward;
+            if ((occupied & (1L << push)) == 0) {
+                targets |= 1L << push;
+                int startRank = color == Board.WHITE ? 1 : 6;
+                if (from >>> 3 == startRank && (occupied & (1L << (push + forward))) == 0) {
+                    targets |= 1L << (push + forward);
+                }
+            }
+            return targets;
+        }
+
+        // Empty squares the piece could have come from without capturing or promoting
+        private long unmoveOrigins(int piece, int to, long occupied) {
+            if (piece % 6 != 0) {
+                return attacks(piece, to, occupied) & ~occupied;
+            }
+            int color = Board.pieceColor(piece);
+            int backward = color == Board.WHITE ? -8 : 8;
+            int from = to + backward;
+            int startRank = color == Board.WHITE ? 1 : 6;
+            long origins = 0;
+            // A pawn never stands on its first rank
+            if ((from >>> 3) != (color == Board.WHITE ? 0 : 7) && (occupied & (1L << from)) == 0) {
+                origins |= 1L << from;
+                int doubleFrom = from + backward;
+                if (doubleFrom >>> 3 == startRank && (occupied & (1L << doubleFrom)) == 0) {
+                    origins |= 1L << doubleFrom;
+                }
+            }
+            return origins;
+        }
+
+        // Both kings apart and not touching, no pawn on a back rank and the side not to move not in check
+        private boolean isLegal(int side) {
+            long occupied = 0;
+            for (int slot = 0; slot < count; slot++) {
+                int square = squares[slot];
+                if ((occupied & (1L << square)) != 0) {
+                    return false;
+                }
+                occupied |= 1L << square;
+                if (pieces[slot] % 6 == 0 && (square >>> 3 == 0 || square >>> 3 == 7)) {
+                    return false;
+                }
+            }
+            return !isAttacked(kingSlot(side ^ 1), side, squares, -1);
+        }
+
+        // Whether the king in kingSlot is attacked by the given color, ignoring the captured slot
+        private boolean isAttacked(int kingSlot, int byColor, int[] placement, int captured) {
+            long occupied = occupancy(placement, captured);
+            long king = 1L << placement[kingSlot];
+            for (int slot = 0; slot < count; slot++) {
+                int piece = pieces[slot];
+                if (slot != captured && Board.pieceColor(piece) == byColor
+                        && (attacks(piece, placement[slot], occupied) & king) != 0) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        private long occupancy(int[] placement, int captured) {
+            long occupied = 0;
+            for (int slot = 0; slot < count; slot++) {
+                if (slot != captured) {
+                    occupied |= 1L << placement[slot];
+                }
+            }
+            return occupied;
+        }
+
+        private static int kingSlot(int color) {
+            return color == Board.WHITE ? 0 : 1;
+        }
+
+        private static long attacks(int piece, int square, long occupied) {
+            return switch (piece % 6) {
+                case 0 -> Attacks.pawnAttacks(Board.pieceColor(piece), square);
+                case 1 -> Attacks.knightAttacks(square);
+                case 2 -> Attacks.bishopAttacks(square, occupied);
+                case 3 -> Attacks.rookAttacks(square, occupied);
+                case 4 -> Attacks.queenAttacks(square, occupied);
+                default -> Attacks.kingAttacks(square);
+            };
+        }
+    }
+}
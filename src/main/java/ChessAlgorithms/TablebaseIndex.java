@@ -0,0 +1,253 @@
+package ChessAlgorithms;
+
+import chess.logic.Board;
+
+/**
+ * Position numbering of one endgame table, shared by the generator and the reader. A table
+ * covers one material signature such as "KQvKR": its pieces are kept in a fixed order (white
+ * king, black king, then the other white and black pieces, queen to pawn) and a position is
+ * numbered by the side to move and the squares of those pieces, six bits each.
+ *
+ * Symmetry keeps the tables small: the board is mirrored so the white king stands on files
+ * a-d, and without pawns also reflected so it stands in the a1-d1-d4 triangle. Tables are
+ * stored for the stronger side as white; positions where black is stronger are looked up
+ * with the colours swapped.
+ */
+final class TablebaseIndex {
+    static final int MAX_PIECES = 4;
+
+    // Non-king piece types from strongest to weakest, as they appear in signatures
+    private static final String PIECE_ORDER = "QRBNP";
+    private static final int[] PIECE_STRENGTH = {1, 3, 3, 5, 9, 0};
+
+    // White king square to its slot in the king region, or -1 outside the region
+    private static final int[] TRIANGLE_SLOT = new int[64];
+    private static final int[] HALF_BOARD_SLOT = new int[64];
+    private static final int[] TRIANGLE_SQUARE = new int[10];
+    private static final int[] HALF_BOARD_SQUARE = new int[32];
+
+    static {
+        int triangle = 0;
+        int half = 0;
+        for (int square = 0; square < 64; square++) {
+            int file = square & 7;
+            int rank = square >>> 3;
+            TRIANGLE_SLOT[square] = file < 4 && rank <= file ? triangle : -1;
+            if (TRIANGLE_SLOT[square] >= 0) {
+                TRIANGLE_SQUARE[triangle++] = square;
+            }
+            HALF_BOARD_SLOT[square] = file < 4 ? half : -1;
+            if (HALF_BOARD_SLOT[square] >= 0) {
+                HALF_BOARD_SQUARE[half++] = square;
+            }
+        }
+    }
+
+    final String signature;
+    // Piece indices in table order; [0] is the white king and [1] the black king
+    final int[] pieces;
+    final boolean pawns;
+    final int size;
+
+    private TablebaseIndex(String signature, int[] pieces) {
+        this.signature = signature;
+        this.pieces = pieces;
+        boolean hasPawns = false;
+        for (int piece : pieces) {
+            hasPawns |= piece % 6 == 0;
+        }
+        this.pawns = hasPawns;
+        this.size = 2 * (pawns ? 32 : 10) * (1 << (6 * (pieces.length - 1)));
+    }
+
+    /**
+     * @param signature White's pieces, "v", black's pieces, e.g. "KRvK" or "KBNvK"
+     * @throws IllegalArgumentException if it is malformed, has more than MAX_PIECES pieces or is
+     * not in the canonical orientation (stronger side white)
+     */
+    static TablebaseIndex forSignature(String signature) {
+        String[] sides = signature.split("v");
+        if (sides.length != 2 || !sides[0].startsWith("K") || !sides[1].startsWith("K")
+                || signature.length() - 1 > MAX_PIECES || signature.length() - 1 < 3) {
+            throw new IllegalArgumentException("Invalid tablebase signature: " + signature);
+        }
+        int[] pieces = new int[signature.length() - 1];
+        pieces[0] = Board.WHITE_KING;
+        pieces[1] = Board.BLACK_KING;
+        int count = 2;
+        for (int color = Board.WHITE; color <= Board.BLACK; color++) {
+            String side = sides[color];
+            for (int i = 1; i < side.length(); i++) {
+                int order = PIECE_ORDER.indexOf(side.charAt(i));
+                if (order < 0 || (i > 1 && order < PIECE_ORDER.indexOf(side.charAt(i - 1)))) {
+                    throw new IllegalArgumentException("Invalid tablebase signature: " + signature);
+                }
+                pieces[count++] = (4 - order) + (color == Board.WHITE ? 0 : Board.BLACK_PAWN);
+            }
+        }
+        if (compareSides(sides[0], sides[1]) < 0) {
+            throw new IllegalArgumentException("Stronger side must be white: " + signature);
+        }
+        return new TablebaseIndex(signature, pieces);
+    }
+
+    // Number of the position; squares are in table order and are mirrored as needed
+    int index(int side, int[] squares) {
+        int transform = transform(squares);
+        int kingSlot = (pawns ? HALF_BOARD_SLOT : TRIANGLE_SLOT)[apply(squares[0], transform)];
+        int index = side * (pawns ? 32 : 10) + kingSlot;
+        for (int i = 1; i < pieces.length; i++) {
+            index = (index << 6) | apply(squares[i], transform);
+        }
+        return index;
+    }
+
+    // Fills squares with the placement numbered index; returns the side to move
+    int decode(int index, int[] squares) {
+        for (int i = pieces.length - 1; i >= 1; i--) {
+            squares[i] = index & 63;
+            index >>>= 6;
+        }
+        int regionSize = pawns ? 32 : 10;
+        squares[0] = (pawns ? HALF_BOARD_SQUARE : TRIANGLE_SQUARE)[index % regionSize];
+        return index / regionSize;
+    }
+
+    /**
+     * Bit 0 mirrors files, bit 1 mirrors ranks, bit 2 swaps files and ranks (applied in that
+     * order). With the white king on the a1-h8 diagonal, the first other piece off it decides
+     * the swap, so each position has exactly one number.
+     */
+    private int transform(int[] squares) {
+        int whiteKing = squares[0];
+        int transform = (whiteKing & 7) > 3 ? 1 : 0;
+        if (pawns) {
+            return transform;
+        }
+        int square = apply(whiteKing, transform);
+        if ((square >>> 3) > 3) {
+            transform |= 2;
+            square ^= 56;
+        }
+        if ((square >>> 3) > (square & 7)) {
+            return transform | 4;
+        }
+        for (int i = 1; (square >>> 3) == (square & 7) && i < pieces.length; i++) {
+            int other = apply(squares[i], transform);
+            if ((other >>> 3) != (other & 7)) {
+                return (other >>> 3) > (other & 7) ? transform | 4 : transform;
+            }
+        }
+        return transform;
+    }
+
+    // Whether the number decodes to the placement it was computed from; the others are never used
+    boolean isCanonical(int index, int[] squares) {
+        return index(decode(index, squares), squares) == index;
+    }
+
+    private static int apply(int square, int transform) {
+        if ((transform & 1) != 0) {
+            square ^= 7;
+        }
+        if ((transform & 2) != 0) {
+            square ^= 56;
+        }
+        if ((transform & 4) != 0) {
+            square = ((square & 7) << 3) | (square >>> 3);
+        }
+        return square;
+    }
+
+    /**
+     * Finds the table of an arbitrary placement of kings and up to two other pieces: swaps the
+     * colours if black is the stronger side and orders the squares as the table expects.
+     * @param pieces Piece indices, both kings included, in any order
+     * @param squares Their squares
+     * @param out Receives the table's signature, side to move and ordered squares
+     */
+    static void locate(int count, int[] pieces, int[] squares, int side, Placement out) {
+        long material = 0;
+        for (int i = 0; i < count; i++) {
+            material += 1L << (3 * pieces[i]);
+        }
+        // The signature only depends on the material, which rarely changes between lookups
+        if (material != out.material) {
+            String white = sideSignature(count, pieces, Board.WHITE);
+            String black = sideSignature(count, pieces, Board.BLACK);
+            out.swap = compareSides(white, black) < 0;
+            out.signature = out.swap ? black + "v" + white : white + "v" + black;
+            out.material = material;
+        }
+        boolean swap = out.swap;
+        out.side = swap ? side ^ 1 : side;
+        out.count = count;
+
+        // Table order: kings first, then white and black pieces from queen to pawn
+        int slot = 0;
+        for (int tableColor = Board.WHITE; tableColor <= Board.BLACK; tableColor++) {
+            slot = placePieces(count, pieces, squares, swap ? tableColor ^ 1 : tableColor, 5, swap, out, slot);
+        }
+        for (int tableColor = Board.WHITE; tableColor <= Board.BLACK; tableColor++) {
+            for (int type = 4; type >= 0; type--) {
+                slot = placePieces(count, pieces, squares, swap ? tableColor ^ 1 : tableColor, type, swap, out, slot);
+            }
+        }
+    }
+
+    private static int placePieces(int count, int[] pieces, int[] squares, int color, int type, boolean swap,
+                                   Placement out, int slot) {
+        int piece = type + (color == Board.WHITE ? 0 : Board.BLACK_PAWN);
+        for (int i = 0; i < count; i++) {
+            if (pieces[i] == piece) {
+                out.squares[slot++] = swap ? squares[i] ^ 56 : squares[i];
+            }
+        }
+        return slot;
+    }
+
+    // "K" followed by the color's other pieces from queen to pawn
+    private static String sideSignature(int count, int[] pieces, int color) {
+        StringBuilder signature = new StringBuilder("K");
+        for (int order = 0; order < PIECE_ORDER.length(); order++) {
+            int piece = (4 - order) + (color == Board.WHITE ? 0 : Board.BLACK_PAWN);
+            for (int i = 0; i < count; i++) {
+                if (pieces[i] == piece) {
+                    signature.append(PIECE_ORDER.charAt(order));
+                }
+            }
+        }
+        return signature.toString();
+    }
+
+    // Positive if the first side is stronger: more material, then more pieces, then stronger pieces first
+    private static int compareSides(String first, String second) {
+        int compare = Integer.compare(strength(first), strength(second));
+        if (compare == 0) {
+            compare = Integer.compare(first.length(), second.length());
+        }
+        for (int i = 1; compare == 0 && i < first.length(); i++) {
+            compare = Integer.compare(PIECE_ORDER.indexOf(second.charAt(i)), PIECE_ORDER.indexOf(first.charAt(i)));
+        }
+        return compare;
+    }
+
+    private static int strength(String side) {
+        int strength = 0;
+        for (int i = 1; i < side.length(); i++) {
+            strength += PIECE_STRENGTH[4 - PIECE_ORDER.indexOf(side.charAt(i))];
+        }
+        return strength;
+    }
+
+    // A position normalised to the table that holds it; reusing one saves working out the signature again
+    static final class Placement {
+        String signature;
+        // Three bits of count per piece index of the last located position, and whether its colours were swapped
+        long material = -1;
+        boolean swap;
+        int side;
+        int count;
+        final int[] squares = new int[MAX_PIECES];
+    }
+}
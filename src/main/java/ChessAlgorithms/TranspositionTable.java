@@ -0,0 +1,145 @@
+package ChessAlgorithms;
+
+import java.util.Arrays;
+
+/**
+ * Fixed-size hash table of search results keyed by Zobrist key. Entries are packed into
+ * two flat long arrays: the data word and the key XORed with the data. A probe only
+ * accepts an entry whose two words still XOR back to the key, so entries torn by another
+ * thread writing the same slot read as misses. Several searches can share one table
+ * without locks.
+ *
+ * Each bucket has two slots: a depth-preferred slot that keeps the deepest result of the
+ * current search, and an always-replace slot that takes everything else.
+ */
+public class TranspositionTable {
+    // Bound types; EXACT has both bits set
+    public static final int LOWER_BOUND = 1;
+    public static final int UPPER_BOUND = 2;
+    public static final int EXACT = 3;
+
+    // Returned by probe on a miss; a stored entry is never 0 because its bound is non-zero
+    public static final long NO_ENTRY = 0L;
+
+    private static final int ENTRY_BYTES = 16;
+
+    // Data word layout: move 0-15, score 16-47, depth 48-55, bound 56-57, age 58-63
+    private static final int SCORE_SHIFT = 16;
+    private static final int DEPTH_SHIFT = 48;
+    private static final int BOUND_SHIFT = 56;
+    private static final int AGE_SHIFT = 58;
+
+    private final long[] keys;
+    private final long[] data;
+    private final int bucketMask;
+    private int age;
+    // Searches running on the table, e.g. concurrent analysis requests
+    private int activeSearches;
+
+    /**
+     * @param megabytes Memory to use; rounded down to a power-of-two number of buckets
+     */
+    public TranspositionTable(int megabytes) {
+        if (megabytes < 1) {
+            throw new IllegalArgumentException("Hash size must be at least 1 MB: " + megabytes);
+        }
+        long entries = Long.highestOneBit((long) megabytes * 1024 * 1024 / ENTRY_BYTES);
+        int size = (int) Math.min(entries, 1 << 30);
+        keys = new long[size];
+        data = new long[size];
+        bucketMask = size / 2 - 1;
+    }
+
+    /**
+     * Starts a search; entries of earlier searches become replaceable. Searches that overlap
+     * share one age, advanced when the first of them starts, so they keep each other's entries.
+     * Every call is paired with endSearch.
+     */
+    public synchronized void startSearch() {
+        if (activeSearches++ == 0) {
+            age = (age + 1) & 63;
+        }
+    }
+
+    public synchronized void endSearch() {
+        activeSearches--;
+    }
+
+    public void clear() {
+        Arrays.fill(keys, 0L);
+        Arrays.fill(data, 0L);
+        age = 0;
+    }
+
+    // Packed entry for the key, or NO_ENTRY
+    public long probe(long key) {
+        int index = (int) (key & bucketMask) << 1;
+        for (int slot = index; slot < index + 2; slot++) {
+            long entry = data[slot];
+            if ((keys[slot] ^ entry) == key && entry != NO_ENTRY) {
+                return entry;
+            }
+        }
+        return NO_ENTRY;
+    }
+
+    // True if every slot of the key's bucket holds another position, so a miss here was a collision
+    public boolean isBucketFull(long key) {
+        int index = (int) (key & bucketMask) << 1;
+        return data[index] != NO_ENTRY && data[index + 1] != NO_ENTRY;
+    }
+
+    public void store(long key, int move, int score, int depth, int bound) {
+        int index = (int) (key & bucketMask) << 1;
+
+        long deepest = data[index];
+        long deepestKey = keys[index];
+        long other = data[index + 1];
+        // The slot already holding this position, if either does
+        int found = (deepestKey ^ deepest) == key ? index : (keys[index + 1] ^ other) == key ? index + 1 : -1;
+        if (found >= 0 && move == 0) {
+            // Keep the known best move when a search of this position did not find one
+            move = move(found == index ? deepest : other);
+        }
+
+        long entry = (move & 0xFFFFL)
+                | ((score & 0xFFFFFFFFL) << SCORE_SHIFT)
+                | ((long) Math.min(Math.max(depth, 0), 255) << DEPTH_SHIFT)
+                | ((long) bound << BOUND_SHIFT)
+                | ((long) age << AGE_SHIFT);
+
+        int slot;
+        if (found == index || depth >= depth(deepest) || age(deepest) != age) {
+            if (found == index + 1) {
+                // The position moves up; the entry it displaces takes its old slot, so neither is kept twice
+                data[index + 1] = deepest;
+                keys[index + 1] = deepestKey;
+            }
+            slot = index;
+        } else {
+            slot = index + 1;
+        }
+        data[slot] = entry;
+        keys[slot] = key ^ entry;
+    }
+
+    public static int move(long entry) {
+        return (int) (entry & 0xFFFF);
+    }
+
+    public static int score(long entry) {
+        return (int) (entry >>> SCORE_SHIFT);
+    }
+
+    public static int depth(long entry) {
+        return (int) (entry >>> DEPTH_SHIFT) & 255;
+    }
+
+    public static int bound(long entry) {
+        return (int) (entry >>> BOUND_SHIFT) & 3;
+    }
+
+    private static int age(long entry) {
+        return (int) (entry >>> AGE_SHIFT) & 63;
+    }
+}
@@ -0,0 +1,151 @@
+package PGNToSQL;
+
+import ChessAlgorithms.OpeningBook;
+import chess.logic.Board;
+import chess.logic.Move;
+
+import java.io.*;
+import java.nio.file.*;
+import java.sql.*;
+import java.util.*;
+
+/**
+ * Builds the engine's opening book from the games stored by PGNToSQLConverter. Every game is
+ * replayed for its first MAX_PLY plies; each position and move played is counted together
+ * with the result for the side that played it, and the totals are written sorted by
+ * position key in the format OpeningBook reads.
+ *
+ * Usage: OpeningBookCompiler [database url] [output file]
+ */
+public class OpeningBookCompiler {
+    private static final String DEFAULT_DB_URL = "jdbc:sqlite:database/chess-games.db";
+    private static final String DEFAULT_OUTPUT = "database/opening-book.bin";
+
+    // Plies of every game that go into the book
+    private static final int MAX_PLY = 30;
+    // Moves played in fewer games are left out as noise
+    private static final int MIN_GAMES = 2;
+    private static final int MAX_WEIGHT = 0xFFFF;
+
+    // A position key and a move played there
+    private record BookKey(long key, int move) {
+    }
+
+    public static void main(String[] args) {
+        String dbUrl = args.length > 0 ? args[0] : DEFAULT_DB_URL;
+        Path output = Paths.get(args.length > 1 ? args[1] : DEFAULT_OUTPUT);
+
+        try {
+            Map<BookKey, int[]> counts = replayGames(dbUrl);
+            int written = writeBook(counts, output);
+            System.out.println("Wrote " + written + " book entries to " + output);
+        } catch (SQLException | IOException e) {
+            System.err.println("Error: " + e.getMessage());
+            e.printStackTrace();
+        }
+    }
+
+    // Wins, draws and losses of the side to move for every position and move in the first MAX_PLY plies
+    private static Map<BookKey, int[]> replayGames(String dbUrl) throws SQLException {
+        Map<BookKey, int[]> counts = new HashMap<>();
+        Board board = new Board();
+        int games = 0;
+        int skipped = 0;
+        int truncated = 0;
+
+        try (Connection conn = DriverManager.getConnection(dbUrl);
+             Statement stmt = conn.createStatement();
+             ResultSet rows = stmt.executeQuery("SELECT moves_text, result FROM chess_games")) {
+            while (rows.next()) {
+                // Index into wins/draws/losses from white's point of view
+                int whiteOutcome = switch (rows.getString("result")) {
+                    case "1-0" -> 0;
+                    case "1/2-1/2" -> 1;
+                    case "0-1" -> 2;
+                    default -> -1;
+                };
+                String movesText = rows.getString("moves_text");
+                if (whiteOutcome < 0 || movesText == null) {
+                    skipped++;
+                    continue;
+                }
+
+                board.setPosition("rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w KQkq - 0 1");
+                int ply = 0;
+                for (String token : movesText.trim().split("\\s+")) {
+                    if (ply == MAX_PLY) {
+                        break;
+                    }
+                    String san = stripMoveNumber(token);
+                    if (san.isEmpty() || !(Character.isLetter(san.charAt(0)) || san.startsWith("0-0"))) {
+                        continue; // A bare move number or the result
+                    }
+                    int move;
+                    try {
+                        move = Move.parseSAN(board, san);
+                    } catch (IllegalArgumentException e) {
+                        truncated++;
+                        break; // Keep the plies replayed so far
+                    }
+                    int outcome = board.getSideToMove() == Board.WHITE ? whiteOutcome : 2 - whiteOutcome;
+                    counts.computeIfAbsent(new BookKey(board.getZobristKey(), move), k -> new int[3])[outcome]++;
+                    board.makeMove(move);
+                    ply++;
+                }
+
+                if (++games % 1000 == 0) {
+                    System.out.println("Replayed " + games + " games...");
+                }
+            }
+        }
+
+        System.out.println("Replayed " + games + " games, skipped " + skipped + " without a result, cut "
+                + truncated + " short at a move that could not be read");
+        return counts;
+    }
+
+    // Move numbers may be written against the move, as in "1.e4" or "1...e5"; castling may be written with zeros
+    private static String stripMoveNumber(String token) {
+        if (token.startsWith("0-0")) {
+            return token;
+        }
+        int start = 0;
+        while (start < token.length() && (Character.isDigit(token.charAt(start)) || token.charAt(start) == '.')) {
+            start++;
+        }
+        return token.substring(start);
+    }
+
+    // Writes the entries played often enough, sorted by key; returns the number written
+    private static int writeBook(Map<BookKey, int[]> counts, Path output) throws IOException {
+        List<Map.Entry<BookKey, int[]>> entries = new ArrayList<>();
+        long maxScore = 1;
+        for (Map.Entry<BookKey, int[]> entry : counts.entrySet()) {
+            int[] wdl = entry.getValue();
+            if (wdl[0] + wdl[1] + wdl[2] >= MIN_GAMES) {
+                entries.add(entry);
+                maxScore = Math.max(maxScore, score(wdl));
+            }
+        }
+        entries.sort((a, b) -> Long.compareUnsigned(a.getKey().key(), b.getKey().key()));
+
+        if (output.getParent() != null) {
+            Files.createDirectories(output.getParent());
+        }
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(output)))) {
+            for (Map.Entry<BookKey, int[]> entry : entries) {
+                int[] wdl = entry.getValue();
+                // Scale the scores into 16 bits when the most played move would overflow them
+                long weight = maxScore > MAX_WEIGHT ? score(wdl) * MAX_WEIGHT / maxScore : score(wdl);
+                OpeningBook.writeEntry(out, entry.getKey().key(), entry.getKey().move(), (int) weight,
+                        wdl[0], wdl[1], wdl[2]);
+            }
+        }
+        return entries.size();
+    }
+
+    // Polyglot's weighting: two points for a win, one for a draw
+    private static long score(int[] wdl) {
+        return 2L * wdl[0] + wdl[1];
+    }
+}
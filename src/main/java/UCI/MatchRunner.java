@@ -0,0 +1,266 @@
+package UCI;
+
+import chess.logic.Board;
+import chess.logic.Move;
+import chess.logic.MoveGenerator;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Self-play match between two engine builds, to measure whether a change makes the engine
+ * stronger or faster before it is merged. Both engines run as UCI processes, typically
+ * UciEngine started from two different class directories. Every opening of a balanced set is
+ * played twice with colours reversed, several games at a time, under a fixed time or node
+ * limit per move. The match stops as soon as the SPRT decides, and reports the Elo difference
+ * and the nodes per second of both engines.
+ *
+ * Usage: MatchRunner --engine1 "command" --engine2 "command" [--movetime ms | --nodes n]
+ * [--concurrency n] [--games n] [--elo0 0] [--elo1 5] [--alpha 0.05] [--beta 0.05] [--openings file]
+ *
+ * Results are given for engine1, the build under test, against engine2, the baseline.
+ */
+public class MatchRunner {
+    private static final String DEFAULT_OPENINGS = "/match-openings.txt";
+    private static final String DEFAULT_LIMITS = "movetime 100";
+    private static final int DEFAULT_GAMES = 20000;
+    // Games still running after this many plies are adjudicated as draws
+    private static final int MAX_PLIES = 400;
+
+    private final String engine1;
+    private final String engine2;
+    private final String limits;
+    private final List<String> openings;
+    private final Sprt sprt;
+    private final int maxGames;
+
+    private final AtomicInteger nextGame = new AtomicInteger();
+    private volatile boolean finished;
+    // Results from engine1's point of view, and search totals per engine
+    private int wins;
+    private int draws;
+    private int losses;
+    private final long[] nodes = new long[2];
+    private final long[] timeMillis = new long[2];
+
+    public MatchRunner(String engine1, String engine2, String limits, List<String> openings, Sprt sprt, int maxGames) {
+        this.engine1 = engine1;
+        this.engine2 = engine2;
+        this.limits = limits;
+        this.openings = openings;
+        this.sprt = sprt;
+        this.maxGames = maxGames;
+    }
+
+    public static void main(String[] args) throws IOException, InterruptedException {
+        Map<String, String> options = new HashMap<>();
+        for (int i = 0; i + 1 < args.length; i += 2) {
+            if (!args[i].startsWith("--")) {
+                usage("Unexpected argument " + args[i]);
+            }
+            options.put(args[i].substring(2), args[i + 1]);
+        }
+        if (args.length % 2 != 0 || !options.containsKey("engine1") || !options.containsKey("engine2")) {
+            usage("Both --engine1 and --engine2 are required");
+        }
+
+        String limits = DEFAULT_LIMITS;
+        if (options.containsKey("nodes")) {
+            limits = "nodes " + Long.parseLong(options.get("nodes"));
+        } else if (options.containsKey("movetime")) {
+            limits = "movetime " + Long.parseLong(options.get("movetime"));
+        }
+        int concurrency = Integer.parseInt(options.getOrDefault("concurrency",
+                String.valueOf(Runtime.getRuntime().availableProcessors())));
+        Sprt sprt = new Sprt(Double.parseDouble(options.getOrDefault("elo0", "0")),
+                Double.parseDouble(options.getOrDefault("elo1", "5")),
+                Double.parseDouble(options.getOrDefault("alpha", "0.05")),
+                Double.parseDouble(options.getOrDefault("beta", "0.05")));
+
+        MatchRunner match = new MatchRunner(options.get("engine1"), options.get("engine2"), limits,
+                loadOpenings(options.get("openings")), sprt,
+                Integer.parseInt(options.getOrDefault("games", String.valueOf(DEFAULT_GAMES))));
+        match.run(Math.max(1, concurrency));
+        match.report();
+    }
+
+    private static void usage(String message) {
+        System.err.println(message);
+        System.err.println("Usage: MatchRunner --engine1 \"command\" --engine2 \"command\" [--movetime ms | --nodes n]"
+                + " [--concurrency n] [--games n] [--elo0 0] [--elo1 5] [--alpha 0.05] [--beta 0.05] [--openings file]");
+        System.exit(1);
+    }
+
+    // One FEN per line; blank lines and lines starting with # are skipped
+    static List<String> loadOpenings(String file) throws IOException {
+        List<String> lines;
+        if (file != null) {
+            lines = Files.readAllLines(Paths.get(file));
+        } else {
+            try (InputStream stream = MatchRunner.class.getResourceAsStream(DEFAULT_OPENINGS)) {
+                if (stream == null) {
+                    throw new IOException("Missing resource " + DEFAULT_OPENINGS);
+                }
+                lines = new BufferedReader(new InputStreamReader(stream)).lines().toList();
+            }
+        }
+        List<String> openings = new ArrayList<>();
+        for (String line : lines) {
+            if (!line.isBlank() && !line.startsWith("#")) {
+                openings.add(line.trim());
+            }
+        }
+        if (openings.isEmpty()) {
+            throw new IOException("No openings in " + (file == null ? DEFAULT_OPENINGS : file));
+        }
+        return openings;
+    }
+
+    /**
+     * Plays games on the given number of threads until the SPRT decides or maxGames are played.
+     * Each thread keeps its own pair of engine processes for all of its games.
+     */
+    public void run(int concurrency) throws InterruptedException {
+        ExecutorService workers = Executors.newFixedThreadPool(concurrency);
+        for (int i = 0; i < concurrency; i++) {
+            workers.submit(this::playGames);
+        }
+        workers.shutdown();
+        workers.awaitTermination(Long.MAX_VALUE, TimeUnit.MILLISECONDS);
+    }
+
+    private void playGames() {
+        try (UciProcess first = new UciProcess(engine1); UciProcess second = new UciProcess(engine2)) {
+            int game;
+            while (!finished && (game = nextGame.getAndIncrement()) < maxGames) {
+                // Consecutive games share an opening with colours reversed
+                String opening = openings.get((game / 2) % openings.size());
+                int result = playGame(first, second, opening, game % 2 == 0);
+                record(result);
+            }
+        } catch (IOException e) {
+            System.err.println("Match stopped: " + e.getMessage());
+            finished = true;
+        }
+    }
+
+    /**
+     * Plays one game from the opening position.
+     * @return 1 if engine1 won, -1 if it lost, 0 for a draw
+     */
+    private int playGame(UciProcess first, UciProcess second, String opening, boolean firstIsWhite) throws IOException {
+        first.newGame();
+        second.newGame();
+        Board board = new Board(opening);
+        StringBuilder moves = new StringBuilder();
+        List<Long> positions = new ArrayList<>();
+        positions.add(board.getZobristKey());
+        int[] legalMoves = new int[MoveGenerator.MAX_MOVES];
+
+        for (int ply = 0; ply < MAX_PLIES; ply++) {
+            int side = board.getSideToMove();
+            boolean firstToMove = (side == Board.WHITE) == firstIsWhite;
+            if (MoveGenerator.generateLegal(board, legalMoves, 0) == 0) {
+                if (!board.isInCheck(side)) {
+                    return 0; // Stalemate
+                }
+                return firstToMove ? -1 : 1;
+            }
+            if (isDraw(board, positions)) {
+                return 0;
+            }
+
+            UciProcess engine = firstToMove ? first : second;
+            UciProcess.Reply reply = engine.go("fen " + opening + (moves.isEmpty() ? "" : " moves" + moves), limits);
+            addSearch(firstToMove ? 0 : 1, reply);
+            int move;
+            try {
+                move = Move.parseUci(board, reply.move());
+            } catch (IllegalArgumentException e) {
+                System.err.println("Illegal move " + reply.move() + " by " + (firstToMove ? "engine1" : "engine2")
+                        + " in " + board.getFENStringPosition());
+                return firstToMove ? -1 : 1;
+            }
+            board.makeMove(move);
+            moves.append(' ').append(reply.move());
+            positions.add(board.getZobristKey());
+        }
+        return 0;
+    }
+
+    // Fifty-move rule, threefold repetition or too little material to mate
+    private static boolean isDraw(Board board, List<Long> positions) {
+        if (board.getHalfMoveClock() >= 100) {
+            return true;
+        }
+        long key = board.getZobristKey();
+        int repetitions = 0;
+        for (long position : positions) {
+            if (position == key) {
+                repetitions++;
+            }
+        }
+        if (repetitions >= 3) {
+            return true;
+        }
+        int pieces = Long.bitCount(board.getOccupancy(Board.BOTH));
+        long minorPieces = board.getBitboard(Board.WHITE_KNIGHT) | board.getBitboard(Board.BLACK_KNIGHT)
+                | board.getBitboard(Board.WHITE_BISHOP) | board.getBitboard(Board.BLACK_BISHOP);
+        return pieces == 2 || (pieces == 3 && minorPieces != 0);
+    }
+
+    private synchronized void addSearch(int engine, UciProcess.Reply reply) {
+        nodes[engine] += reply.nodes();
+        timeMillis[engine] += reply.timeMillis();
+    }
+
+    private synchronized void record(int result) {
+        if (finished) {
+            return; // Decided while this game was running
+        }
+        if (result > 0) {
+            wins++;
+        } else if (result < 0) {
+            losses++;
+        } else {
+            draws++;
+        }
+        System.out.printf("Games %d: +%d -%d =%d  Elo %.1f +/- %.1f  LLR %.2f [%.2f, %.2f]%n",
+                wins + draws + losses, wins, losses, draws, Sprt.elo(wins, draws, losses),
+                Sprt.eloError(wins, draws, losses), sprt.llr(wins, draws, losses),
+                sprt.getLowerBound(), sprt.getUpperBound());
+        if (sprt.verdict(wins, draws, losses) != 0) {
+            finished = true;
+        }
+    }
+
+    public synchronized void report() {
+        int verdict = sprt.verdict(wins, draws, losses);
+        System.out.println();
+        System.out.printf("Score of engine1 vs engine2: +%d -%d =%d in %d games%n",
+                wins, losses, draws, wins + draws + losses);
+        System.out.printf("Elo difference: %.1f +/- %.1f (95%%)%n",
+                Sprt.elo(wins, draws, losses), Sprt.eloError(wins, draws, losses));
+        System.out.printf("SPRT: LLR %.2f [%.2f, %.2f] - %s%n", sprt.llr(wins, draws, losses),
+                sprt.getLowerBound(), sprt.getUpperBound(),
+                verdict > 0 ? "H1 accepted, engine1 is stronger" : verdict < 0 ? "H0 accepted, engine1 is not stronger"
+                        : "no verdict");
+        System.out.printf("NPS: engine1 %d, engine2 %d%n", nps(0), nps(1));
+    }
+
+    private long nps(int engine) {
+        return timeMillis[engine] == 0 ? 0 : nodes[engine] * 1000 / timeMillis[engine];
+    }
+}
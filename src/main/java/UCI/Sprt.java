@@ -0,0 +1,84 @@
+package UCI;
+
+/**
+ * Sequential probability ratio test on match results, as used to accept or reject engine
+ * changes: H0 says the first engine is elo0 stronger than the second, H1 that it is elo1
+ * stronger. After every game the log-likelihood ratio of the two is compared with bounds
+ * set by the accepted error rates alpha (accepting H1 wrongly) and beta (accepting H0
+ * wrongly); the test runs until it leaves them.
+ *
+ * Uses the normal approximation of the generalised SPRT on win/draw/loss counts, so it
+ * needs no draw model.
+ */
+final class Sprt {
+    private final double elo0;
+    private final double elo1;
+    private final double lowerBound;
+    private final double upperBound;
+
+    Sprt(double elo0, double elo1, double alpha, double beta) {
+        this.elo0 = elo0;
+        this.elo1 = elo1;
+        this.lowerBound = Math.log(beta / (1 - alpha));
+        this.upperBound = Math.log((1 - beta) / alpha);
+    }
+
+    // Log-likelihood ratio of H1 against H0 after the given results of the first engine
+    double llr(int wins, int draws, int losses) {
+        int games = wins + draws + losses;
+        if (games == 0) {
+            return 0;
+        }
+        double score = (wins + draws / 2.0) / games;
+        double variance = (wins * Math.pow(1 - score, 2) + draws * Math.pow(0.5 - score, 2)
+                + losses * Math.pow(score, 2)) / games;
+        if (variance == 0) {
+            return 0; // All results alike: nothing to measure yet
+        }
+        double score0 = expectedScore(elo0);
+        double score1 = expectedScore(elo1);
+        return games * (score1 - score0) * (2 * score - score0 - score1) / (2 * variance);
+    }
+
+    double getLowerBound() {
+        return lowerBound;
+    }
+
+    double getUpperBound() {
+        return upperBound;
+    }
+
+    // +1 when H1 is accepted, -1 when H0 is, 0 while undecided
+    int verdict(int wins, int draws, int losses) {
+        double llr = llr(wins, draws, losses);
+        return llr >= upperBound ? 1 : llr <= lowerBound ? -1 : 0;
+    }
+
+    // Elo difference the score of the first engine points to
+    static double elo(int wins, int draws, int losses) {
+        int games = wins + draws + losses;
+        return games == 0 ? 0 : eloFromScore((wins + draws / 2.0) / games);
+    }
+
+    // Half width of the 95% confidence interval of elo
+    static double eloError(int wins, int draws, int losses) {
+        int games = wins + draws + losses;
+        if (games == 0) {
+            return Double.POSITIVE_INFINITY;
+        }
+        double score = (wins + draws / 2.0) / games;
+        double variance = (wins * Math.pow(1 - score, 2) + draws * Math.pow(0.5 - score, 2)
+                + losses * Math.pow(score, 2)) / games;
+        double margin = 1.959964 * Math.sqrt(variance / games);
+        return (eloFromScore(score + margin) - eloFromScore(score - margin)) / 2;
+    }
+
+    private static double expectedScore(double elo) {
+        return 1 / (1 + Math.pow(10, -elo / 400));
+    }
+
+    private static double eloFromScore(double score) {
+        double clamped = Math.min(Math.max(score, 1e-6), 1 - 1e-6);
+        return 400 * Math.log10(clamped / (1 - clamped));
+    }
+}
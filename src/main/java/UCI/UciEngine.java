@@ -0,0 +1,337 @@
+package UCI;
+
+import ChessAlgorithms.EngineSession;
+import ChessAlgorithms.SearchClock;
+import ChessAlgorithms.SearchResult;
+import ChessAlgorithms.Tablebase;
+import chess.logic.Board;
+import chess.logic.Move;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.PrintStream;
+import java.nio.file.Paths;
+import java.util.List;
+
+/**
+ * Universal Chess Interface front-end: reads commands from stdin and answers on stdout, so
+ * the engine can play in any UCI GUI or in MatchRunner. Searches run on their own thread so
+ * "stop", "ponderhit" and "isready" are answered while the engine thinks.
+ *
+ * One EngineSession, and with it the hash table and history, is kept until "ucinewgame" or a
+ * change of the Hash option. "go ponder" starts the session's ponder search; on "ponderhit"
+ * the session takes it over with the move's budget, on "stop" it answers with what it found.
+ */
+public class UciEngine {
+    private static final String NAME = "ChessWebApi";
+    private static final String START_POSITION = "rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w KQkq - 0 1";
+    private static final int MAX_DEPTH = 64;
+    private static final int DEFAULT_HASH_MB = 16;
+    private static final int MAX_HASH_MB = 4096;
+    private static final int MAX_LINES = 10;
+
+    private final BufferedReader in;
+    private final PrintStream out;
+
+    private int hashMegabytes = DEFAULT_HASH_MB;
+    private int threads = 1;
+    private int lines = 1;
+    private Tablebase tablebase;
+    private EngineSession session;
+    private Board board = new Board(START_POSITION);
+
+    // The running search; its clock is how stop reaches it
+    private Thread searchThread;
+    private SearchClock searchClock;
+    // Whether bestmove must wait for stop or ponderhit, and whether ponderhit came
+    private boolean waitForStop;
+    private boolean ponderHit;
+
+    public UciEngine(BufferedReader in, PrintStream out) {
+        this.in = in;
+        this.out = out;
+    }
+
+    public static void main(String[] args) throws IOException {
+        new UciEngine(new BufferedReader(new InputStreamReader(System.in)), System.out).run();
+    }
+
+    // Handles commands until "quit" or the end of the input
+    public void run() throws IOException {
+        String line;
+        while ((line = in.readLine()) != null) {
+            String[] tokens = line.trim().split("\\s+");
+            switch (tokens[0]) {
+                case "uci" -> identify();
+                case "isready" -> send("readyok");
+                case "setoption" -> setOption(tokens);
+                case "ucinewgame" -> {
+                    // A search running without limits would never end by itself
+                    stopSearch();
+                    awaitSearch();
+                    closeSession();
+                }
+                case "position" -> setPosition(tokens);
+                case "go" -> go(tokens);
+                case "stop" -> stopSearch();
+                case "ponderhit" -> ponderHit();
+                case "quit" -> {
+                    stopSearch();
+                    awaitSearch();
+                    closeSession();
+                    return;
+                }
+                default -> {
+                    // Unknown commands are ignored, as the protocol asks
+                }
+            }
+        }
+        stopSearch();
+        awaitSearch();
+        closeSession();
+    }
+
+    private void identify() {
+        send("id name " + NAME);
+        send("id author ChessWebApi contributors");
+        send("option name Hash type spin default " + DEFAULT_HASH_MB + " min 1 max " + MAX_HASH_MB);
+        send("option name Threads type spin default 1 min 1 max " + Runtime.getRuntime().availableProcessors());
+        send("option name MultiPV type spin default 1 min 1 max " + MAX_LINES);
+        send("option name Ponder type check default false");
+        send("option name TablebasePath type string default <empty>");
+        send("uciok");
+    }
+
+    // setoption name <name> [value <value>]; names may contain spaces
+    private void setOption(String[] tokens) {
+        int valueIndex = indexOf(tokens, "value");
+        String name = String.join(" ", List.of(tokens).subList(2, valueIndex < 0 ? tokens.length : valueIndex));
+        String value = valueIndex < 0 ? "" : String.join(" ", List.of(tokens).subList(valueIndex + 1, tokens.length));
+        stopSearch();
+        awaitSearch();
+        try {
+            switch (name.toLowerCase()) {
+                case "hash" -> {
+                    hashMegabytes = clamp(Integer.parseInt(value), 1, MAX_HASH_MB);
+                    closeSession();
+                }
+                case "threads" -> threads = clamp(Integer.parseInt(value), 1, Runtime.getRuntime().availableProcessors());
+                case "multipv" -> lines = clamp(Integer.parseInt(value), 1, MAX_LINES);
+                case "tablebasepath" -> {
+                    tablebase = value.isEmpty() || value.equals("<empty>") ? null : Tablebase.open(Paths.get(value));
+                    if (session != null) {
+                        session.getEngine().setTablebase(tablebase);
+                    }
+                }
+                default -> {
+                    // Ponder needs no setting: the GUI decides when to ponder
+                }
+            }
+        } catch (NumberFormatException | IOException e) {
+            send("info string Invalid value for " + name + ": " + value);
+        }
+    }
+
+    // position [startpos | fen <fen>] [moves <move>...]
+    private void setPosition(String[] tokens) {
+        int movesIndex = indexOf(tokens, "moves");
+        int end = movesIndex < 0 ? tokens.length : movesIndex;
+        try {
+            Board position = tokens.length > 1 && tokens[1].equals("fen")
+                    ? new Board(String.join(" ", List.of(tokens).subList(2, end)))
+                    : new Board(START_POSITION);
+            for (int i = end + 1; i < tokens.length; i++) {
+                position.makeMove(Move.parseUci(position, tokens[i]));
+            }
+            board = position;
+        } catch (IllegalArgumentException e) {
+            send("info string " + e.getMessage());
+        }
+    }
+
+    // go [wtime btime winc binc movestogo movetime depth nodes infinite ponder]
+    private void go(String[] tokens) {
+        awaitSearch();
+        long time = -1;
+        long increment = 0;
+        int movesToGo = 0;
+        long moveTime = -1;
+        int depth = MAX_DEPTH;
+        long nodes = 0;
+        boolean infinite = false;
+        boolean ponder = false;
+        String ownTime = board.getSideToMove() == Board.WHITE ? "wtime" : "btime";
+        String ownIncrement = board.getSideToMove() == Board.WHITE ? "winc" : "binc";
+        try {
+            for (int i = 1; i < tokens.length; i++) {
+                String token = tokens[i];
+                if (token.equals("infinite")) {
+                    infinite = true;
+                } else if (token.equals("ponder")) {
+                    ponder = true;
+                } else if (i + 1 < tokens.length) {
+                    if (token.equals(ownTime)) {
+                        time = Long.parseLong(tokens[++i]);
+                    } else if (token.equals(ownIncrement)) {
+                        increment = Long.parseLong(tokens[++i]);
+                    } else if (token.equals("movestogo")) {
+                        movesToGo = Integer.parseInt(tokens[++i]);
+                    } else if (token.equals("movetime")) {
+                        moveTime = Long.parseLong(tokens[++i]);
+                    } else if (token.equals("depth")) {
+                        depth = clamp(Integer.parseInt(tokens[++i]), 1, MAX_DEPTH);
+                    } else if (token.equals("nodes")) {
+                        nodes = Long.parseLong(tokens[++i]);
+                    }
+                }
+            }
+        } catch (NumberFormatException e) {
+            send("info string Invalid go command: " + e.getMessage());
+            return;
+        }
+
+        SearchClock budget;
+        if (moveTime >= 0) {
+            budget = SearchClock.fixedTime(Math.max(1, moveTime));
+        } else if (time >= 0) {
+            budget = SearchClock.fromGameClock(time, increment, movesToGo);
+        } else {
+            budget = SearchClock.unlimited();
+        }
+
+        if (session == null) {
+            session = new EngineSession(hashMegabytes);
+            session.getEngine().setTablebase(tablebase);
+        }
+        session.getEngine().setNodeLimit(nodes);
+        if (threads > 1 && lines > 1) {
+            send("info string MultiPV searches use one thread, Threads is ignored");
+        }
+        searchClock = budget;
+        waitForStop = infinite || ponder;
+        ponderHit = false;
+
+        EngineSession searchSession = session;
+        Board searchBoard = board;
+        int searchDepth = depth;
+        boolean pondering = ponder;
+        searchThread = new Thread(() -> search(searchSession, searchBoard, searchDepth, budget, pondering), "uci-search");
+        searchThread.start();
+    }
+
+    private void search(EngineSession searchSession, Board searchBoard, int depth, SearchClock clock, boolean ponder) {
+        List<SearchResult> result;
+        if (ponder) {
+            // The session searches without limits until the GUI says whether the expected move was played
+            searchSession.ponder(searchBoard, depth, threads);
+            SearchResult best = awaitStop() ? searchSession.think(searchBoard, depth, clock, threads)
+                    : searchSession.stopPondering();
+            result = List.of(best);
+            sendInfo(result);
+        } else if (lines == 1) {
+            // Only MultiPV needs searchMultiPV; search also answers the root from the endgame tables
+            result = List.of(searchSession.think(searchBoard, depth, clock, threads));
+            sendInfo(result);
+        } else {
+            result = searchSession.getEngine().searchMultiPV(searchBoard, depth, clock, lines, this::sendInfo);
+        }
+
+        // In infinite mode bestmove may only be sent after stop
+        awaitStop();
+
+        int[] pv = result.get(0).pvMoves();
+        String bestMove = "bestmove " + Move.toUci(pv.length > 0 ? pv[0] : Move.NONE);
+        send(pv.length > 1 ? bestMove + " ponder " + Move.toUci(pv[1]) : bestMove);
+    }
+
+    private void sendInfo(List<SearchResult> results) {
+        for (int i = 0; i < results.size(); i++) {
+            SearchResult line = results.get(i);
+            String score = line.isMate() ? "mate " + line.getMateIn() : "cp " + line.getScore();
+            StringBuilder info = new StringBuilder("info depth ").append(line.getDepth())
+                    .append(" seldepth ").append(line.getStats().getSelectiveDepth())
+                    .append(" multipv ").append(i + 1)
+                    .append(" score ").append(score)
+                    .append(" nodes ").append(line.getNodes())
+                    .append(" nps ").append(line.getNps())
+                    .append(" time ").append(line.getTimeMillis())
+                    .append(" pv");
+            for (int move : line.pvMoves()) {
+                info.append(' ').append(Move.toUci(move));
+            }
+            send(info.toString());
+        }
+    }
+
+    // Waits for stop or ponderhit while waitForStop is set; true if ponderhit came
+    private synchronized boolean awaitStop() {
+        while (waitForStop) {
+            try {
+                wait();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+        }
+        return ponderHit;
+    }
+
+    // Ends the search at once: its clock runs out, so it returns the last completed depth
+    private synchronized void stopSearch() {
+        if (searchClock != null) {
+            searchClock.setLimits(SearchClock.fixedTime(0));
+        }
+        if (session != null) {
+            session.stop();
+        }
+        waitForStop = false;
+        notifyAll();
+    }
+
+    // The opponent played the expected move: the session's ponder search carries on with the move's budget
+    private synchronized void ponderHit() {
+        ponderHit = true;
+        waitForStop = false;
+        notifyAll();
+    }
+
+    // Drops the session with its hash table and history; the next search starts a new one
+    private void closeSession() {
+        if (session != null) {
+            session.close();
+            session = null;
+        }
+    }
+
+    private void awaitSearch() {
+        if (searchThread == null) {
+            return;
+        }
+        try {
+            searchThread.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        searchThread = null;
+        searchClock = null;
+    }
+
+    private synchronized void send(String message) {
+        out.println(message);
+        out.flush();
+    }
+
+    private static int indexOf(String[] tokens, String token) {
+        for (int i = 0; i < tokens.length; i++) {
+            if (tokens[i].equals(token)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private static int clamp(int value, int min, int max) {
+        return Math.max(min, Math.min(max, value));
+    }
+}
@@ -0,0 +1,99 @@
+package UCI;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.PrintWriter;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A UCI engine running as a child process, driven by MatchRunner. Only what a match needs:
+ * the handshake, new games and one search per move.
+ */
+final class UciProcess implements AutoCloseable {
+    // Answer of one "go": the move and the search statistics of the last info line
+    record Reply(String move, long nodes, long timeMillis) {
+    }
+
+    private final String command;
+    private final Process process;
+    private final BufferedReader in;
+    private final PrintWriter out;
+
+    /**
+     * Starts the engine and waits for it to finish the UCI handshake.
+     * @param command Command line of the engine, split on whitespace
+     * @throws IOException if the engine cannot be started or exits during the handshake
+     */
+    UciProcess(String command) throws IOException {
+        this.command = command;
+        this.process = new ProcessBuilder(command.trim().split("\\s+"))
+                .redirectError(ProcessBuilder.Redirect.INHERIT)
+                .start();
+        this.in = new BufferedReader(new InputStreamReader(process.getInputStream()));
+        this.out = new PrintWriter(process.getOutputStream(), true);
+        send("uci");
+        waitFor("uciok");
+    }
+
+    void newGame() throws IOException {
+        send("ucinewgame");
+        send("isready");
+        waitFor("readyok");
+    }
+
+    /**
+     * Searches a position and waits for the move.
+     * @param position The "position" command's arguments, e.g. "fen ... moves e2e4"
+     * @param limits The "go" command's arguments, e.g. "movetime 100"
+     */
+    Reply go(String position, String limits) throws IOException {
+        send("position " + position);
+        send("go " + limits);
+        long nodes = 0;
+        long time = 0;
+        String line;
+        while ((line = in.readLine()) != null) {
+            String[] tokens = line.trim().split("\\s+");
+            if (tokens[0].equals("info") && !(tokens.length > 1 && tokens[1].equals("string"))) {
+                for (int i = 1; i + 1 < tokens.length; i++) {
+                    if (tokens[i].equals("nodes")) {
+                        nodes = Long.parseLong(tokens[i + 1]);
+                    } else if (tokens[i].equals("time")) {
+                        time = Long.parseLong(tokens[i + 1]);
+                    }
+                }
+            } else if (tokens[0].equals("bestmove") && tokens.length > 1) {
+                return new Reply(tokens[1], nodes, time);
+            }
+        }
+        throw new IOException("Engine exited while searching: " + command);
+    }
+
+    private void send(String message) {
+        out.println(message);
+    }
+
+    private void waitFor(String answer) throws IOException {
+        String line;
+        while ((line = in.readLine()) != null) {
+            if (line.trim().equals(answer)) {
+                return;
+            }
+        }
+        throw new IOException("Engine exited before answering " + answer + ": " + command);
+    }
+
+    @Override
+    public void close() {
+        send("quit");
+        try {
+            if (!process.waitFor(2, TimeUnit.SECONDS)) {
+                process.destroyForcibly();
+            }
+        } catch (InterruptedException e) {
+            process.destroyForcibly();
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -3,193 +3,826 @@ package chess.logic;
 import java.util.*;
 
 public class Board {
-    private final String[][] squares = new String[8][8];
+    // Piece indices: white pieces 0-5, black pieces 6-11, in the order P N B R Q K
+    public static final int WHITE_PAWN = 0;
+    public static final int WHITE_KNIGHT = 1;
+    public static final int WHITE_BISHOP = 2;
+    public static final int WHITE_ROOK = 3;
+    public static final int WHITE_QUEEN = 4;
+    public static final int WHITE_KING = 5;
+    public static final int BLACK_PAWN = 6;
+    public static final int BLACK_KNIGHT = 7;
+    public static final int BLACK_BISHOP = 8;
+    public static final int BLACK_ROOK = 9;
+    public static final int BLACK_QUEEN = 10;
+    public static final int BLACK_KING = 11;
+    public static final int EMPTY = -1;
+
+    // Colors, also used as indices into the occupancy masks
+    public static final int WHITE = 0;
+    public static final int BLACK = 1;
+    public static final int BOTH = 2;
+
+    // Castling rights bits, as stored in the FEN castling field
+    public static final int WHITE_KINGSIDE = 1;
+    public static final int WHITE_QUEENSIDE = 2;
+    public static final int BLACK_KINGSIDE = 4;
+    public static final int BLACK_QUEENSIDE = 8;
+    public static final int NO_SQUARE = -1;
+
+    private static final String PIECE_LETTERS = "PNBRQKpnbrqk";
+    private static final String[] PIECE_STRINGS =
+            {"P", "N", "B", "R", "Q", "K", "p", "n", "b", "r", "q", "k"};
+
+    // Castling rights that survive a move touching each square
+    private static final int[] CASTLING_MASK = new int[64];
+
+    static {
+        Arrays.fill(CASTLING_MASK, 15);
+        CASTLING_MASK[0] &= ~WHITE_QUEENSIDE;
+        CASTLING_MASK[7] &= ~WHITE_KINGSIDE;
+        CASTLING_MASK[4] &= ~(WHITE_KINGSIDE | WHITE_QUEENSIDE);
+        CASTLING_MASK[56] &= ~BLACK_QUEENSIDE;
+        CASTLING_MASK[63] &= ~BLACK_KINGSIDE;
+        CASTLING_MASK[60] &= ~(BLACK_KINGSIDE | BLACK_QUEENSIDE);
+    }
+
+    // Longest FEN writeFEN produces: 64 squares, 7 separators, the state fields and two int counters
+    public static final int MAX_FEN_LENGTH = 128;
+
+    private static final int INITIAL_HISTORY = 1024;
+    // Most pieces of one kind a legal position can hold (2 originals + 8 promotions)
+    private static final int MAX_PIECES_PER_TYPE = 10;
+
+    // One bitboard per piece, bit 0 = a1, bit 7 = h1, bit 63 = h8
+    private final long[] bitboards = new long[12];
+    private final long[] occupancy = new long[3];
+    // Square-centric view of the same position for O(1) "what is on e4" lookups
+    private final int[] mailbox = new int[64];
+    // Piece lists: the squares of every piece of each kind, plus each square's slot in its list
+    private final int[][] pieceSquares = new int[12][MAX_PIECES_PER_TYPE];
+    private final int[] pieceCounts = new int[12];
+    private final int[] listSlot = new int[64];
     private String FENStringPosition;
-    private static final HashMap<String, Integer> fileToColumn =
-            new HashMap<>(Map.of(
-                    "a", 0,
-                    "b", 1,
-                    "c", 2,
-                    "d", 3,
-                    "e", 4,
-                    "f", 5,
-                    "g", 6,
-                    "h", 7
-            ));
+
+    // Game state from the remaining FEN fields
+    private int sideToMove;
+    private int castlingRights;
+    private int enPassantSquare = NO_SQUARE;
+    private int halfMoveClock;
+    private int fullMoveNumber = 1;
+
+    // Zobrist key of the position, kept up to date by every change to the board or state
+    private long zobristKey;
+    // Zobrist key of the pawns alone, for caching pawn structure evaluation
+    private long pawnKey;
+
+    // Material plus piece-square scores (white minus black) and game phase, kept up to date like the key
+    private int midgameScore;
+    private int endgameScore;
+    private int gamePhase;
+
+    // Undo stack for makeMove/unmakeMove, one slot per ply played on this board
+    private int historyPly;
+    private int[] undoMove = new int[INITIAL_HISTORY];
+    private int[] undoCaptured = new int[INITIAL_HISTORY];
+    private int[] undoCastling = new int[INITIAL_HISTORY];
+    private int[] undoEnPassant = new int[INITIAL_HISTORY];
+    private int[] undoHalfMove = new int[INITIAL_HISTORY];
+    private long[] undoKey = new long[INITIAL_HISTORY];
 
     public Board(String FENStringPosition){
-        this.FENStringPosition = FENStringPosition;
-        initializeSquares();
+        setPosition(FENStringPosition);
     }
 
     public Board(){
-        this.FENStringPosition = "RNBQKBNR/PPPPPPPP/8/8/8/8/pppppppp/rnbqkbnr w KQkq - 0 1";
-        initializeSquares();
-    }
-
-    // Initialize square names (a1–h8)
-    private void initializeSquares() {
-        String position = FENStringPosition.split(" ")[0];
-        String[] ranks = position.split("/");
-
-        for (int j = 0; j < ranks.length; j++) {
-            String rank = ranks[j];
-            int fileIndex = 0; // column index (0–7)
-
-            for (int i = 0; i < rank.length(); i++) {
-                char c = rank.charAt(i);
-
-                if (Character.isDigit(c)) {
-                    int emptyCount = c - '0';
-                    for (int k = 0; k < emptyCount; k++) {
-                        if ((j + fileIndex) % 2 == 0) {
-                            squares[j][fileIndex] = "o ";  // light square
-                        } else {
-                            squares[j][fileIndex] = "x ";  // dark square
-                        }
-                        fileIndex++;
-                    }
-                } else {
-                    squares[j][fileIndex] = c + " ";
-                    fileIndex++;
+        this("rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w KQkq - 0 1");
+    }
+
+    /**
+     * Loads a FEN in a single pass over its characters, replacing the current position and
+     * clearing the move history. Reusing one board this way parses positions without allocating.
+     * Missing state fields keep their defaults, as do move counters that are not numbers.
+     * @throws IllegalArgumentException if the piece placement or en passant square is invalid,
+     * including pawns on the first or last rank
+     */
+    public void setPosition(CharSequence fen) {
+        Arrays.fill(bitboards, 0L);
+        Arrays.fill(occupancy, 0L);
+        Arrays.fill(mailbox, EMPTY);
+        Arrays.fill(pieceCounts, 0);
+        zobristKey = 0L;
+        pawnKey = 0L;
+        midgameScore = 0;
+        endgameScore = 0;
+        gamePhase = 0;
+        historyPly = 0;
+        FENStringPosition = fen instanceof String fenString ? fenString : null;
+
+        int length = fen.length();
+        int i = skipSpaces(fen, 0);
+
+        // Piece placement, rank 8 first
+        int rank = 7;
+        int file = 0;
+        for (; i < length && fen.charAt(i) != ' '; i++) {
+            char c = fen.charAt(i);
+            if (c == '/') {
+                if (file != 8 || rank == 0) {
+                    throw invalidFEN(fen);
                 }
+                rank--;
+                file = 0;
+            } else if (c >= '1' && c <= '8') {
+                file += c - '0';
+                if (file > 8) {
+                    throw invalidFEN(fen);
+                }
+            } else {
+                int piece = pieceFromLetter(c);
+                // Pawns never stand on the first or last rank; the move generator relies on it
+                if (piece == EMPTY || file >= 8
+                        || ((piece == WHITE_PAWN || piece == BLACK_PAWN) && (rank == 0 || rank == 7))) {
+                    throw invalidFEN(fen);
+                }
+                putPiece(piece, rank * 8 + file++);
+            }
+        }
+        if (rank != 0 || file != 8) {
+            throw invalidFEN(fen);
+        }
+
+        // Side to move
+        i = skipSpaces(fen, i);
+        sideToMove = i < length && fen.charAt(i) == 'b' ? BLACK : WHITE;
+        i = skipSpaces(fen, fieldEnd(fen, i));
+
+        // Castling rights, "-" for none
+        castlingRights = 0;
+        for (; i < length && fen.charAt(i) != ' '; i++) {
+            switch (fen.charAt(i)) {
+                case 'K' -> castlingRights |= WHITE_KINGSIDE;
+                case 'Q' -> castlingRights |= WHITE_QUEENSIDE;
+                case 'k' -> castlingRights |= BLACK_KINGSIDE;
+                case 'q' -> castlingRights |= BLACK_QUEENSIDE;
+            }
+        }
+
+        // En passant square, "-" for none
+        i = skipSpaces(fen, i);
+        enPassantSquare = NO_SQUARE;
+        int end = fieldEnd(fen, i);
+        if (end > i && fen.charAt(i) != '-') {
+            int col = fen.charAt(i) - 'a';
+            int row = end - i == 2 ? fen.charAt(i + 1) - '1' : -1;
+            if (col < 0 || col >= 8 || row < 0 || row >= 8) {
+                throw invalidFEN(fen);
+            }
+            enPassantSquare = row * 8 + col;
+        }
+
+        // Half move clock and full move number
+        i = skipSpaces(fen, end);
+        end = fieldEnd(fen, i);
+        halfMoveClock = parseCounter(fen, i, end, 0);
+        i = skipSpaces(fen, end);
+        fullMoveNumber = parseCounter(fen, i, fieldEnd(fen, i), 1);
+
+        if (sideToMove == BLACK) {
+            zobristKey ^= Zobrist.SIDE_TO_MOVE;
+        }
+        zobristKey ^= Zobrist.CASTLING[castlingRights];
+        if (enPassantSquare != NO_SQUARE) {
+            zobristKey ^= Zobrist.EN_PASSANT_FILE[enPassantSquare & 7];
+        }
+    }
+
+    private static int skipSpaces(CharSequence text, int index) {
+        while (index < text.length() && text.charAt(index) == ' ') {
+            index++;
+        }
+        return index;
+    }
+
+    // Index just past the field starting at index
+    private static int fieldEnd(CharSequence text, int index) {
+        while (index < text.length() && text.charAt(index) != ' ') {
+            index++;
+        }
+        return index;
+    }
+
+    // Non-negative decimal in text[start, end), or the default if the field is missing or not a number
+    private static int parseCounter(CharSequence text, int start, int end, int defaultValue) {
+        if (start == end || end - start > 9) {
+            return defaultValue;
+        }
+        int value = 0;
+        for (int i = start; i < end; i++) {
+            char c = text.charAt(i);
+            if (c < '0' || c > '9') {
+                return defaultValue;
+            }
+            value = value * 10 + (c - '0');
+        }
+        return value;
+    }
+
+    private static IllegalArgumentException invalidFEN(CharSequence fen) {
+        return new IllegalArgumentException("Invalid FEN: " + fen);
+    }
+
+    private void putPiece(int piece, int square) {
+        long bit = 1L << square;
+        bitboards[piece] |= bit;
+        occupancy[pieceColor(piece)] |= bit;
+        occupancy[BOTH] |= bit;
+        mailbox[square] = piece;
+        zobristKey ^= Zobrist.PIECE_SQUARE[piece][square];
+        if (piece == WHITE_PAWN || piece == BLACK_PAWN) {
+            pawnKey ^= Zobrist.PIECE_SQUARE[piece][square];
+        }
+        midgameScore += PieceSquareTables.MIDGAME[piece][square];
+        endgameScore += PieceSquareTables.ENDGAME[piece][square];
+        gamePhase += PieceSquareTables.PHASE_WEIGHT[piece];
+
+        if (pieceCounts[piece] == MAX_PIECES_PER_TYPE) {
+            throw new IllegalArgumentException("Too many pieces of type " + pieceLetter(piece));
+        }
+        listSlot[square] = pieceCounts[piece];
+        pieceSquares[piece][pieceCounts[piece]++] = square;
+    }
+
+    private void removePiece(int square) {
+        int piece = mailbox[square];
+        if (piece == EMPTY) {
+            return;
+        }
+        long bit = 1L << square;
+        bitboards[piece] &= ~bit;
+        occupancy[pieceColor(piece)] &= ~bit;
+        occupancy[BOTH] &= ~bit;
+        mailbox[square] = EMPTY;
+        zobristKey ^= Zobrist.PIECE_SQUARE[piece][square];
+        if (piece == WHITE_PAWN || piece == BLACK_PAWN) {
+            pawnKey ^= Zobrist.PIECE_SQUARE[piece][square];
+        }
+        midgameScore -= PieceSquareTables.MIDGAME[piece][square];
+        endgameScore -= PieceSquareTables.ENDGAME[piece][square];
+        gamePhase -= PieceSquareTables.PHASE_WEIGHT[piece];
+
+        // Fill the hole with the last entry of the list
+        int slot = listSlot[square];
+        int lastSquare = pieceSquares[piece][--pieceCounts[piece]];
+        pieceSquares[piece][slot] = lastSquare;
+        listSlot[lastSquare] = slot;
+    }
+
+    // Moves a piece to an empty square, keeping its slot in the piece list
+    private void movePiece(int from, int to) {
+        int piece = mailbox[from];
+        long fromTo = (1L << from) | (1L << to);
+        bitboards[piece] ^= fromTo;
+        occupancy[pieceColor(piece)] ^= fromTo;
+        occupancy[BOTH] ^= fromTo;
+        mailbox[from] = EMPTY;
+        mailbox[to] = piece;
+        zobristKey ^= Zobrist.PIECE_SQUARE[piece][from] ^ Zobrist.PIECE_SQUARE[piece][to];
+        if (piece == WHITE_PAWN || piece == BLACK_PAWN) {
+            pawnKey ^= Zobrist.PIECE_SQUARE[piece][from] ^ Zobrist.PIECE_SQUARE[piece][to];
+        }
+        midgameScore += PieceSquareTables.MIDGAME[piece][to] - PieceSquareTables.MIDGAME[piece][from];
+        endgameScore += PieceSquareTables.ENDGAME[piece][to] - PieceSquareTables.ENDGAME[piece][from];
+
+        int slot = listSlot[from];
+        pieceSquares[piece][slot] = to;
+        listSlot[to] = slot;
+    }
+
+    public static int pieceFromLetter(char letter) {
+        return PIECE_LETTERS.indexOf(letter);
+    }
+
+    public static char pieceLetter(int piece) {
+        return PIECE_LETTERS.charAt(piece);
+    }
+
+    public static int pieceColor(int piece) {
+        return piece < BLACK_PAWN ? WHITE : BLACK;
+    }
+
+    // Empty squares keep the old "o" (light) / "x" (dark) markers
+    private static String emptySquareMarker(int square) {
+        return ((square & 7) + (square >>> 3)) % 2 == 0 ? "o" : "x";
+    }
+
+    // Square name such as "e4" to its 0..63 index; only used at the API and CLI edges
+    public static int squareIndex(String square) {
+        if (square == null || square.length() != 2) {
+            throw new IllegalArgumentException("Invalid square: " + square);
+        }
+
+        int col = square.charAt(0) - 'a';
+        int row = square.charAt(1) - '1';
+
+        if (col < 0 || col >= 8 || row < 0 || row >= 8) {
+            throw new IllegalArgumentException("Square out of bounds: " + square);
+        }
+
+        return row * 8 + col;
+    }
+
+    public static String squareName(int square) {
+        return "" + (char) ('a' + (square & 7)) + (char) ('1' + (square >>> 3));
+    }
+
+    public long getBitboard(int piece) {
+        return bitboards[piece];
+    }
+
+    public long getOccupancy(int color) {
+        return occupancy[color];
+    }
+
+    public int getPieceAt(int square) {
+        return mailbox[square];
+    }
+
+    // Bitboard of pieces of the given color that attack the square
+    public long attackersTo(int square, int byColor) {
+        return attackersTo(square, byColor, occupancy[BOTH]);
+    }
+
+    // Same, with slider rays blocked by the given occupancy instead of the real one
+    public long attackersTo(int square, int byColor, long occupied) {
+        int offset = byColor == WHITE ? 0 : BLACK_PAWN;
+        long rooksQueens = bitboards[offset + 3] | bitboards[offset + 4];
+        long bishopsQueens = bitboards[offset + 2] | bitboards[offset + 4];
+
+        return (Attacks.pawnAttacks(byColor ^ 1, square) & bitboards[offset])
+                | (Attacks.knightAttacks(square) & bitboards[offset + 1])
+                | (Attacks.kingAttacks(square) & bitboards[offset + 5])
+                | (Attacks.rookAttacks(square, occupied) & rooksQueens)
+                | (Attacks.bishopAttacks(square, occupied) & bishopsQueens);
+    }
+
+    public boolean isSquareAttacked(int square, int byColor) {
+        return attackersTo(square, byColor) != 0;
+    }
+
+    // Whether the side has anything besides pawns and its king; without it zugzwang is likely
+    public boolean hasNonPawnMaterial(int color) {
+        int offset = color == WHITE ? 0 : BLACK_PAWN;
+        return (occupancy[color] & ~bitboards[offset] & ~bitboards[offset + 5]) != 0;
+    }
+
+    public boolean isInCheck(int color) {
+        int kingSquare = getKingSquare(color);
+        return kingSquare != NO_SQUARE && isSquareAttacked(kingSquare, color ^ 1);
+    }
+
+    // O(1) from the piece list; NO_SQUARE when the side has no king (edited positions)
+    public int getKingSquare(int color) {
+        int king = color == WHITE ? WHITE_KING : BLACK_KING;
+        return pieceCounts[king] == 0 ? NO_SQUARE : pieceSquares[king][0];
+    }
+
+    public int getPieceCount(int piece) {
+        return pieceCounts[piece];
+    }
+
+    // Square of the index-th piece of the given kind, for 0 <= index < getPieceCount(piece)
+    public int getPieceSquare(int piece, int index) {
+        return pieceSquares[piece][index];
+    }
+
+    public int getSideToMove() {
+        return sideToMove;
+    }
+
+    public int getCastlingRights() {
+        return castlingRights;
+    }
+
+    public int getEnPassantSquare() {
+        return enPassantSquare;
+    }
+
+    public int getHalfMoveClock() {
+        return halfMoveClock;
+    }
+
+    public int getFullMoveNumber() {
+        return fullMoveNumber;
+    }
+
+    public long getZobristKey() {
+        return zobristKey;
+    }
+
+    // Changes only when a pawn moves, is captured or promotes
+    public long getPawnKey() {
+        return pawnKey;
+    }
+
+    // Middlegame material and piece-square score, white minus black
+    public int getMidgameScore() {
+        return midgameScore;
+    }
+
+    // Endgame material and piece-square score, white minus black
+    public int getEndgameScore() {
+        return endgameScore;
+    }
+
+    // PieceSquareTables.MAX_PHASE with all pieces on the board, 0 with only pawns and kings
+    public int getGamePhase() {
+        return gamePhase;
+    }
+
+    // Recomputes the key from scratch; the incrementally maintained key must always equal this
+    public long computeZobristKey() {
+        long key = 0L;
+        for (int square = 0; square < 64; square++) {
+            if (mailbox[square] != EMPTY) {
+                key ^= Zobrist.PIECE_SQUARE[mailbox[square]][square];
+            }
+        }
+        if (sideToMove == BLACK) {
+            key ^= Zobrist.SIDE_TO_MOVE;
+        }
+        key ^= Zobrist.CASTLING[castlingRights];
+        if (enPassantSquare != NO_SQUARE) {
+            key ^= Zobrist.EN_PASSANT_FILE[enPassantSquare & 7];
+        }
+        return key;
+    }
+
+    // Recomputes the pawn key from scratch; the incrementally maintained key must always equal this
+    public long computePawnKey() {
+        long key = 0L;
+        for (int piece = WHITE_PAWN; piece <= BLACK_PAWN; piece += BLACK_PAWN) {
+            for (int i = 0; i < pieceCounts[piece]; i++) {
+                key ^= Zobrist.PIECE_SQUARE[piece][pieceSquares[piece][i]];
             }
         }
+        return key;
     }
 
+    // The FEN is rebuilt lazily after moves have been made on the board
     public String getFENStringPosition(){
+        if (FENStringPosition == null) {
+            FENStringPosition = buildFENString();
+        }
         return FENStringPosition;
     }
 
+    // Snapshot of the board in the old 8x8 layout: squares[rank][file] holding "P ", "o ", "x " etc.
     public String[][] getSquares(){
+        String[][] squares = new String[8][8];
+        for (int square = 0; square < 64; square++) {
+            int piece = mailbox[square];
+            String value = piece == EMPTY ? emptySquareMarker(square) : PIECE_STRINGS[piece];
+            squares[square >>> 3][square & 7] = value + " ";
+        }
         return squares;
     }
 
     // Look up a square name like "e4" and return its value
     public String getSquare(String square){
-        if (square == null || square.length() != 2) {
-            throw new IllegalArgumentException("Invalid square: " + square);
-        }
-
-        Integer[] indexSquare = processFileAndRank(square);
-        String value = squares[indexSquare[1]][indexSquare[0]];
+        int index = squareIndex(square);
+        int piece = mailbox[index];
 
-        // Remove the space for clean piece identification
-        return value.trim();
+        return piece == EMPTY ? emptySquareMarker(index) : PIECE_STRINGS[piece];
     }
 
     public void setSquare(String square, String piece) {
-        square = square.toLowerCase();
-        Integer[] indexSquare = processFileAndRank(square);
+        int index = squareIndex(square.toLowerCase());
+
+        // " ", "o" and "x" all mean the square is emptied
+        String value = piece.trim();
+        FENStringPosition = null;
+        removePiece(index);
+        if (value.isEmpty() || value.equals("o") || value.equals("x")) {
+            return;
+        }
 
-        // Add space back for consistent board storage
-        if (piece.length() == 1) {
-            squares[indexSquare[1]][indexSquare[0]] = piece + " ";
-        } else {
-            squares[indexSquare[1]][indexSquare[0]] = piece;
+        int pieceIndex = pieceFromLetter(value.charAt(0));
+        if (value.length() != 1 || pieceIndex == EMPTY) {
+            throw new IllegalArgumentException("Invalid piece: " + piece);
         }
+        putPiece(pieceIndex, index);
     }
 
-    public Integer[] processFileAndRank(String square){
-        char file = square.charAt(0);
-        char rankChar = square.charAt(1);
-
-        int col = file - 'a';
-        int row = (rankChar - '1');
+    // Ends the turn after pieces were moved with setSquare: switches side and advances the move counters
+    public void setFENStringPosition() {
+        // Increment half move clock (resets on captures/pawn moves - you'll need to add this logic)
+        halfMoveClock++;
 
-        if (col < 0 || col >= 8 || row < 0 || row >= 8) {
-            throw new IllegalArgumentException("Square out of bounds: " + square);
+        // Increment full move counter only after black moves
+        if (sideToMove == BLACK) {
+            fullMoveNumber++;
         }
 
-        return new Integer[]{col, row};
+        sideToMove ^= 1;
+        zobristKey ^= Zobrist.SIDE_TO_MOVE;
+        FENStringPosition = null;
     }
 
-    public void setFENStringPosition() {
-        StringBuilder newFENString = new StringBuilder();
+    private String buildFENString() {
+        char[] buffer = new char[MAX_FEN_LENGTH];
+        return new String(buffer, 0, writeFEN(buffer, 0));
+    }
+
+    /**
+     * Writes the FEN of the position into buffer from offset on, without allocating.
+     * The buffer needs room for MAX_FEN_LENGTH chars.
+     * @return the number of chars written
+     */
+    public int writeFEN(char[] buffer, int offset) {
+        int pos = offset;
 
         for (int row = 7; row >= 0; row--) { // FEN starts from rank 8 (top)
-            String[] rank = squares[row];
             int emptyCount = 0;
 
-            for (String square : rank) {
-                String piece = square.trim(); // Remove any spaces
+            for (int col = 0; col < 8; col++) {
+                int piece = mailbox[row * 8 + col];
 
-                if (piece.equals("x") || piece.equals("o") || piece.equals("")) {
+                if (piece == EMPTY) {
                     emptyCount++;
                 } else {
                     if (emptyCount > 0) {
-                        newFENString.append(emptyCount);
+                        buffer[pos++] = (char) ('0' + emptyCount);
                         emptyCount = 0;
                     }
-                    newFENString.append(piece);
+                    buffer[pos++] = pieceLetter(piece);
                 }
             }
 
             // Add any remaining empty squares at the end of the rank
             if (emptyCount > 0) {
-                newFENString.append(emptyCount);
+                buffer[pos++] = (char) ('0' + emptyCount);
             }
 
             // Add rank separator (but not after the last rank)
             if (row > 0) {
-                newFENString.append("/");
+                buffer[pos++] = '/';
             }
         }
 
-        // Update game state information
-        String[] fenParts = FENStringPosition.split(" ");
-        String currentTurn = fenParts[1];
-        String nextTurn = currentTurn.equals("w") ? "b" : "w";
+        buffer[pos++] = ' ';
+        buffer[pos++] = sideToMove == WHITE ? 'w' : 'b';
+
+        // Castling rights
+        buffer[pos++] = ' ';
+        if (castlingRights == 0) {
+            buffer[pos++] = '-';
+        } else {
+            if ((castlingRights & WHITE_KINGSIDE) != 0) buffer[pos++] = 'K';
+            if ((castlingRights & WHITE_QUEENSIDE) != 0) buffer[pos++] = 'Q';
+            if ((castlingRights & BLACK_KINGSIDE) != 0) buffer[pos++] = 'k';
+            if ((castlingRights & BLACK_QUEENSIDE) != 0) buffer[pos++] = 'q';
+        }
+
+        // En passant
+        buffer[pos++] = ' ';
+        if (enPassantSquare == NO_SQUARE) {
+            buffer[pos++] = '-';
+        } else {
+            buffer[pos++] = (char) ('a' + (enPassantSquare & 7));
+            buffer[pos++] = (char) ('1' + (enPassantSquare >>> 3));
+        }
+
+        buffer[pos++] = ' ';
+        pos = writeCounter(buffer, pos, halfMoveClock);
+        buffer[pos++] = ' ';
+        pos = writeCounter(buffer, pos, fullMoveNumber);
 
-        // Handle move counters more carefully
-        int halfMoves = 0;
-        int fullMoves = 1;
+        return pos - offset;
+    }
+
+    // Writes a non-negative int in decimal and returns the position after it
+    private static int writeCounter(char[] buffer, int pos, int value) {
+        int digits = 1;
+        for (int rest = value / 10; rest > 0; rest /= 10) {
+            digits++;
+        }
+        for (int i = pos + digits - 1; i >= pos; i--) {
+            buffer[i] = (char) ('0' + value % 10);
+            value /= 10;
+        }
+        return pos + digits;
+    }
 
-        try {
-            if (fenParts.length > 4) {
-                halfMoves = Integer.parseInt(fenParts[4]);
+    /**
+     * Builds a move from one square to another, working out the flags (capture, castling,
+     * en passant, double push, promotion) from the current position.
+     * @param promotionLetter Promotion piece ('n', 'b', 'r' or 'q'), ignored unless a pawn reaches the last rank
+     */
+    public int createMove(int from, int to, char promotionLetter) {
+        int piece = mailbox[from];
+        boolean capture = mailbox[to] != EMPTY;
+        int fileDistance = Math.abs((from & 7) - (to & 7));
+
+        if (piece == WHITE_PAWN || piece == BLACK_PAWN) {
+            if (to == enPassantSquare && fileDistance == 1 && !capture) {
+                return Move.encode(from, to, Move.EN_PASSANT);
             }
-            if (fenParts.length > 5) {
-                fullMoves = Integer.parseInt(fenParts[5]);
+            if (Math.abs(to - from) == 16) {
+                return Move.encode(from, to, Move.DOUBLE_PAWN_PUSH);
             }
-        } catch (NumberFormatException e) {
-            // Use defaults if parsing fails
+            int toRank = to >>> 3;
+            if (toRank == 0 || toRank == 7) {
+                int promotion = switch (Character.toLowerCase(promotionLetter)) {
+                    case 'n' -> Move.KNIGHT_PROMOTION;
+                    case 'b' -> Move.BISHOP_PROMOTION;
+                    case 'r' -> Move.ROOK_PROMOTION;
+                    default -> Move.QUEEN_PROMOTION;
+                };
+                return Move.encode(from, to, capture ? promotion | Move.CAPTURE : promotion);
+            }
+        } else if ((piece == WHITE_KING || piece == BLACK_KING) && fileDistance == 2) {
+            return Move.encode(from, to, to > from ? Move.KING_CASTLE : Move.QUEEN_CASTLE);
         }
 
-        // Increment half move clock (resets on captures/pawn moves - you'll need to add this logic)
-        halfMoves++;
+        return Move.encode(from, to, capture ? Move.CAPTURE : Move.QUIET);
+    }
 
-        // Increment full move counter only after black moves
-        if (currentTurn.equals("b")) {
-            fullMoves++;
+    /**
+     * Plays a move on this board, pushing everything needed to take it back onto the undo stack.
+     * The move is not checked for legality.
+     */
+    public void makeMove(int move) {
+        if (historyPly == undoMove.length) {
+            growHistory();
         }
 
-        // Rebuild the FEN string
-        StringBuilder finalFEN = new StringBuilder();
-        finalFEN.append(newFENString)
-                .append(" ").append(nextTurn)
-                .append(" ").append(fenParts.length > 2 ? fenParts[2] : "-") // Castling rights
-                .append(" ").append(fenParts.length > 3 ? fenParts[3] : "-") // En passant
-                .append(" ").append(halfMoves)
-                .append(" ").append(fullMoves);
+        int from = Move.from(move);
+        int to = Move.to(move);
+        int flags = Move.flags(move);
+        int piece = mailbox[from];
+        int captureSquare = flags == Move.EN_PASSANT ? to ^ 8 : to;
+        int captured = mailbox[captureSquare];
+
+        undoMove[historyPly] = move;
+        undoCaptured[historyPly] = captured;
+        undoCastling[historyPly] = castlingRights;
+        undoEnPassant[historyPly] = enPassantSquare;
+        undoHalfMove[historyPly] = halfMoveClock;
+        undoKey[historyPly] = zobristKey;
+        historyPly++;
+
+        if (enPassantSquare != NO_SQUARE) {
+            zobristKey ^= Zobrist.EN_PASSANT_FILE[enPassantSquare & 7];
+            enPassantSquare = NO_SQUARE;
+        }
+
+        if (captured != EMPTY) {
+            removePiece(captureSquare);
+        }
+        if (Move.isPromotion(move)) {
+            removePiece(from);
+            putPiece(piece + Move.promotionType(move), to);
+        } else {
+            movePiece(from, to);
+        }
+
+        if (flags == Move.KING_CASTLE) {
+            movePiece(to + 1, to - 1);
+        } else if (flags == Move.QUEEN_CASTLE) {
+            movePiece(to - 2, to + 1);
+        } else if (flags == Move.DOUBLE_PAWN_PUSH) {
+            enPassantSquare = (from + to) >>> 1;
+            zobristKey ^= Zobrist.EN_PASSANT_FILE[enPassantSquare & 7];
+        }
 
-        this.FENStringPosition = finalFEN.toString();
-        System.out.println("New FEN: " + FENStringPosition);
+        int newRights = castlingRights & CASTLING_MASK[from] & CASTLING_MASK[to];
+        if (newRights != castlingRights) {
+            zobristKey ^= Zobrist.CASTLING[castlingRights] ^ Zobrist.CASTLING[newRights];
+            castlingRights = newRights;
+        }
+
+        if (piece == WHITE_PAWN || piece == BLACK_PAWN || captured != EMPTY) {
+            halfMoveClock = 0;
+        } else {
+            halfMoveClock++;
+        }
+        if (sideToMove == BLACK) {
+            fullMoveNumber++;
+        }
+        sideToMove ^= 1;
+        zobristKey ^= Zobrist.SIDE_TO_MOVE;
+        FENStringPosition = null;
+    }
+
+    // Takes back the last move played with makeMove
+    public void unmakeMove() {
+        if (historyPly == 0) {
+            throw new IllegalStateException("No move to undo");
+        }
+        historyPly--;
+
+        int move = undoMove[historyPly];
+        int from = Move.from(move);
+        int to = Move.to(move);
+        int flags = Move.flags(move);
+
+        sideToMove ^= 1;
+        if (sideToMove == BLACK) {
+            fullMoveNumber--;
+        }
+
+        if (Move.isPromotion(move)) {
+            removePiece(to);
+            putPiece(sideToMove == WHITE ? WHITE_PAWN : BLACK_PAWN, from);
+        } else {
+            movePiece(to, from);
+        }
+
+        if (flags == Move.KING_CASTLE) {
+            movePiece(to - 1, to + 1);
+        } else if (flags == Move.QUEEN_CASTLE) {
+            movePiece(to + 1, to - 2);
+        }
+
+        int captured = undoCaptured[historyPly];
+        if (captured != EMPTY) {
+            putPiece(captured, flags == Move.EN_PASSANT ? to ^ 8 : to);
+        }
+
+        castlingRights = undoCastling[historyPly];
+        enPassantSquare = undoEnPassant[historyPly];
+        halfMoveClock = undoHalfMove[historyPly];
+        zobristKey = undoKey[historyPly];
+        FENStringPosition = null;
+    }
+
+    /**
+     * Passes the turn without moving, for null-move pruning in the search. Take it back with
+     * unmakeNullMove, never with unmakeMove.
+     */
+    public void makeNullMove() {
+        if (historyPly == undoMove.length) {
+            growHistory();
+        }
+
+        undoMove[historyPly] = Move.NONE;
+        undoCaptured[historyPly] = EMPTY;
+        undoCastling[historyPly] = castlingRights;
+        undoEnPassant[historyPly] = enPassantSquare;
+        undoHalfMove[historyPly] = halfMoveClock;
+        undoKey[historyPly] = zobristKey;
+        historyPly++;
+
+        if (enPassantSquare != NO_SQUARE) {
+            zobristKey ^= Zobrist.EN_PASSANT_FILE[enPassantSquare & 7];
+            enPassantSquare = NO_SQUARE;
+        }
+        halfMoveClock++;
+        if (sideToMove == BLACK) {
+            fullMoveNumber++;
+        }
+        sideToMove ^= 1;
+        zobristKey ^= Zobrist.SIDE_TO_MOVE;
+        FENStringPosition = null;
+    }
+
+    public void unmakeNullMove() {
+        if (historyPly == 0 || undoMove[historyPly - 1] != Move.NONE) {
+            throw new IllegalStateException("No null move to undo");
+        }
+        historyPly--;
+
+        sideToMove ^= 1;
+        if (sideToMove == BLACK) {
+            fullMoveNumber--;
+        }
+        enPassantSquare = undoEnPassant[historyPly];
+        halfMoveClock = undoHalfMove[historyPly];
+        zobristKey = undoKey[historyPly];
+        FENStringPosition = null;
+    }
+
+    // Only reached by games longer than the initial stack; search never grows it
+    private void growHistory() {
+        int size = undoMove.length * 2;
+        undoMove = Arrays.copyOf(undoMove, size);
+        undoCaptured = Arrays.copyOf(undoCaptured, size);
+        undoCastling = Arrays.copyOf(undoCastling, size);
+        undoEnPassant = Arrays.copyOf(undoEnPassant, size);
+        undoHalfMove = Arrays.copyOf(undoHalfMove, size);
+        undoKey = Arrays.copyOf(undoKey, size);
     }
 
     public ArrayList<String> getPiecePositions(String piece){
         ArrayList<String> positions = new ArrayList<>();
+        int pieceIndex = piece.length() == 1 ? pieceFromLetter(piece.charAt(0)) : EMPTY;
+        if (pieceIndex == EMPTY) {
+            return positions;
+        }
 
-        for (int i = 0; i < squares.length; i++) {
-            for (int j = 0; j < squares[i].length; j++) {
-                if ((squares[i][j]).strip().equals(piece)) {
-                    for (String letter:fileToColumn.keySet()){
-                        if (fileToColumn.get(letter).equals(j)){
-                            positions.add(letter+(i+1));
-                        }
-                    }
-                }
-            }
+        for (int i = 0; i < pieceCounts[pieceIndex]; i++) {
+            positions.add(squareName(pieceSquares[pieceIndex][i]));
         }
         return positions;
     }
@@ -197,7 +830,8 @@ public class Board {
     public void printBoard() {
         for (int row = 7; row >= 0; row--) {
             for (int col = 0; col < 8; col++) {
-                System.out.print(squares[row][col]);
+                int piece = mailbox[row * 8 + col];
+                System.out.print((piece == EMPTY ? emptySquareMarker(row * 8 + col) : PIECE_STRINGS[piece]) + " ");
             }
             System.out.println();
         }
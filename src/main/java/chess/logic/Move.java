@@ -0,0 +1,176 @@
+package chess.logic;
+
+/**
+ * Moves packed into an int: bits 0-5 hold the from square, bits 6-11 the to
+ * square and bits 12-15 the move flags. Squares are 0..63 with a1 = 0 and h8 = 63.
+ */
+public final class Move {
+    public static final int NONE = 0;
+
+    // Move flags
+    public static final int QUIET = 0;
+    public static final int DOUBLE_PAWN_PUSH = 1;
+    public static final int KING_CASTLE = 2;
+    public static final int QUEEN_CASTLE = 3;
+    public static final int CAPTURE = 4;
+    public static final int EN_PASSANT = 5;
+    public static final int PROMOTION = 8;
+    public static final int KNIGHT_PROMOTION = 8;
+    public static final int BISHOP_PROMOTION = 9;
+    public static final int ROOK_PROMOTION = 10;
+    public static final int QUEEN_PROMOTION = 11;
+
+    private static final char[] PROMOTION_LETTERS = {'n', 'b', 'r', 'q'};
+
+    private Move() {
+    }
+
+    public static int encode(int from, int to, int flags) {
+        return from | (to << 6) | (flags << 12);
+    }
+
+    public static int from(int move) {
+        return move & 63;
+    }
+
+    public static int to(int move) {
+        return (move >>> 6) & 63;
+    }
+
+    public static int flags(int move) {
+        return (move >>> 12) & 15;
+    }
+
+    public static boolean isCapture(int move) {
+        return (flags(move) & CAPTURE) != 0;
+    }
+
+    public static boolean isPromotion(int move) {
+        return (flags(move) & PROMOTION) != 0;
+    }
+
+    // Promoted piece type relative to the pawn: 1 = knight ... 4 = queen
+    public static int promotionType(int move) {
+        return (flags(move) & 3) + 1;
+    }
+
+    /**
+     * Parses the CLI/API form "e2-e4" (or "e7-e8q" for promotions) into a move on the given board.
+     * @throws IllegalArgumentException if the text is not two valid squares
+     */
+    public static int parse(Board board, String text) {
+        String[] squares = text.trim().toLowerCase().split("-");
+        if (squares.length != 2 || squares[1].length() < 2) {
+            throw new IllegalArgumentException("Invalid move: " + text);
+        }
+        int from = Board.squareIndex(squares[0]);
+        int to = Board.squareIndex(squares[1].substring(0, 2));
+        char promotion = squares[1].length() > 2 ? squares[1].charAt(2) : 'q';
+        return board.createMove(from, to, promotion);
+    }
+
+    /**
+     * Parses standard algebraic notation as found in PGN move text ("Nbd7", "exd5", "e8=Q+",
+     * "O-O") into the legal move it names on the given board. Check, mate and annotation
+     * suffixes are ignored.
+     * @throws IllegalArgumentException if the text names no legal move or more than one
+     */
+    public static int parseSAN(Board board, String san) {
+        String text = san.trim();
+        int end = text.length();
+        while (end > 0 && "+#!?".indexOf(text.charAt(end - 1)) >= 0) {
+            end--;
+        }
+        text = text.substring(0, end);
+
+        int[] moves = new int[MoveGenerator.MAX_MOVES];
+        int count = MoveGenerator.generateLegal(board, moves, 0);
+
+        if (text.equals("O-O") || text.equals("0-0") || text.equals("O-O-O") || text.equals("0-0-0")) {
+            int flags = text.length() == 3 ? KING_CASTLE : QUEEN_CASTLE;
+            for (int i = 0; i < count; i++) {
+                if (flags(moves[i]) == flags) {
+                    return moves[i];
+                }
+            }
+            throw new IllegalArgumentException("Illegal move: " + san);
+        }
+
+        // Promotion suffix: "e8=Q" or "e8Q"
+        int promotionType = 0;
+        if (text.length() > 2 && "NBRQ".indexOf(text.charAt(text.length() - 1)) >= 0) {
+            promotionType = "NBRQ".indexOf(text.charAt(text.length() - 1)) + 1;
+            text = text.substring(0, text.charAt(text.length() - 2) == '=' ? text.length() - 2 : text.length() - 1);
+        }
+        if (text.length() < 2) {
+            throw new IllegalArgumentException("Invalid move: " + san);
+        }
+
+        // Moving piece type, then optional disambiguation and capture mark, then the target square
+        int pieceType = "NBRQK".indexOf(text.charAt(0)) + 1;
+        int to = Board.squareIndex(text.substring(text.length() - 2));
+        String origin = text.substring(pieceType == 0 ? 0 : 1, text.length() - 2).replace("x", "");
+        int fromFile = -1;
+        int fromRank = -1;
+        for (int i = 0; i < origin.length(); i++) {
+            char c = origin.charAt(i);
+            if (c >= 'a' && c <= 'h') {
+                fromFile = c - 'a';
+            } else if (c >= '1' && c <= '8') {
+                fromRank = c - '1';
+            } else {
+                throw new IllegalArgumentException("Invalid move: " + san);
+            }
+        }
+
+        int match = NONE;
+        for (int i = 0; i < count; i++) {
+            int move = moves[i];
+            int from = from(move);
+            if (to(move) != to || board.getPieceAt(from) % 6 != pieceType
+                    || (fromFile >= 0 && (from & 7) != fromFile) || (fromRank >= 0 && from >> 3 != fromRank)
+                    || (isPromotion(move) ? promotionType(move) != promotionType : promotionType != 0)) {
+                continue;
+            }
+            if (match != NONE) {
+                throw new IllegalArgumentException("Ambiguous move: " + san);
+            }
+            match = move;
+        }
+        if (match == NONE) {
+            throw new IllegalArgumentException("Illegal move: " + san);
+        }
+        return match;
+    }
+
+    /**
+     * Parses UCI long algebraic notation ("e2e4", "e7e8q", castling as the king's move "e1g1")
+     * into the legal move it names on the given board.
+     * @throws IllegalArgumentException if the text names no legal move
+     */
+    public static int parseUci(Board board, String text) {
+        int[] moves = new int[MoveGenerator.MAX_MOVES];
+        int count = MoveGenerator.generateLegal(board, moves, 0);
+        for (int i = 0; i < count; i++) {
+            if (toUci(moves[i]).equals(text)) {
+                return moves[i];
+            }
+        }
+        throw new IllegalArgumentException("Illegal move: " + text);
+    }
+
+    // UCI long algebraic notation, e.g. "e2e4" or "e7e8q"; "0000" for no move
+    public static String toUci(int move) {
+        if (move == NONE) {
+            return "0000";
+        }
+        String text = Board.squareName(from(move)) + Board.squareName(to(move));
+        return isPromotion(move) ? text + PROMOTION_LETTERS[flags(move) & 3] : text;
+    }
+
+    // Format used by the CLI and API, e.g. "e2-e4" or "e7-e8q"
+    public static String toString(int move) {
+        String text = Board.squareName(from(move)) + "-" + Board.squareName(to(move));
+        return isPromotion(move) ? text + PROMOTION_LETTERS[flags(move) & 3] : text;
+    }
+}
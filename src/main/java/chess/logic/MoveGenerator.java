@@ -0,0 +1,359 @@
+package chess.logic;
+
+/**
+ * Pseudo-legal move generation into caller-owned int buffers. Moves are written from
+ * index start onwards and the new end index is returned, so search code can keep one
+ * buffer per ply and generate captures and quiet moves as separate stages.
+ */
+public final class MoveGenerator {
+    // Upper bound on the number of moves in any chess position
+    public static final int MAX_MOVES = 256;
+
+    private static final long RANK_3 = 0x0000000000FF0000L;
+    private static final long RANK_6 = 0x0000FF0000000000L;
+    private static final long PROMOTION_RANKS = 0xFF000000000000FFL;
+
+    private MoveGenerator() {
+    }
+
+    // Captures and promotions: the moves that change material
+    public static int generateCaptures(Board board, int color, int[] moves, int start) {
+        long targets = board.getOccupancy(color ^ 1);
+        int count = generatePawnCaptures(board, color, moves, start);
+        return generatePieceMoves(board, color, targets, Move.CAPTURE, moves, count);
+    }
+
+    // Everything else: quiet piece moves, pawn pushes and castling
+    public static int generateQuiets(Board board, int color, int[] moves, int start) {
+        long empty = ~board.getOccupancy(Board.BOTH);
+        int count = generatePawnPushes(board, color, moves, start);
+        count = generatePieceMoves(board, color, empty, Move.QUIET, moves, count);
+        return generateCastling(board, color, moves, count);
+    }
+
+    public static int generateAll(Board board, int color, int[] moves, int start) {
+        return generateQuiets(board, color, moves, generateCaptures(board, color, moves, start));
+    }
+
+    /**
+     * Whether the move can be played by the side to move in this position, ignoring checks.
+     * Used to validate moves that come from outside the generator, such as hash moves.
+     */
+    public static boolean isPseudoLegal(Board board, int move) {
+        if (move == Move.NONE) {
+            return false;
+        }
+        int from = Move.from(move);
+        int to = Move.to(move);
+        int color = board.getSideToMove();
+        int piece = board.getPieceAt(from);
+        if (piece == Board.EMPTY || Board.pieceColor(piece) != color) {
+            return false;
+        }
+
+        int target = board.getPieceAt(to);
+        if (target != Board.EMPTY && Board.pieceColor(target) == color) {
+            return false;
+        }
+
+        // The flags must be the ones this position gives the move
+        char promotion = Move.isPromotion(move) ? "nbrq".charAt(Move.promotionType(move) - 1) : 'q';
+        if (board.createMove(from, to, promotion) != move) {
+            return false;
+        }
+
+        long occupied = board.getOccupancy(Board.BOTH);
+        long toBit = 1L << to;
+        return switch (piece % 6) {
+            case Board.WHITE_PAWN -> isPseudoLegalPawnMove(board, color, move, occupied);
+            case Board.WHITE_KNIGHT -> (Attacks.knightAttacks(from) & toBit) != 0;
+            case Board.WHITE_BISHOP -> (Attacks.bishopAttacks(from, occupied) & toBit) != 0;
+            case Board.WHITE_ROOK -> (Attacks.rookAttacks(from, occupied) & toBit) != 0;
+            case Board.WHITE_QUEEN -> (Attacks.queenAttacks(from, occupied) & toBit) != 0;
+            default -> {
+                int flags = Move.flags(move);
+                if (flags == Move.KING_CASTLE || flags == Move.QUEEN_CASTLE) {
+                    yield from == (color == Board.WHITE ? 4 : 60) && canCastle(board, color, flags == Move.KING_CASTLE);
+                }
+                yield (Attacks.kingAttacks(from) & toBit) != 0;
+            }
+        };
+    }
+
+    private static boolean isPseudoLegalPawnMove(Board board, int color, int move, long occupied) {
+        int from = Move.from(move);
+        int to = Move.to(move);
+        int forward = color == Board.WHITE ? 8 : -8;
+
+        if (Move.isCapture(move)) {
+            return (Attacks.pawnAttacks(color, from) & (1L << to)) != 0;
+        }
+        if (to == from + forward) {
+            return true;
+        }
+        // Double push: createMove already checked the distance, the middle square must be empty
+        return Move.flags(move) == Move.DOUBLE_PAWN_PUSH
+                && (from >>> 3) == (color == Board.WHITE ? 1 : 6)
+                && (occupied & ((1L << (from + forward)) | (1L << to))) == 0;
+    }
+
+    private static int generatePieceMoves(Board board, int color, long targets, int flags, int[] moves, int count) {
+        long occupied = board.getOccupancy(Board.BOTH);
+        int offset = color == Board.WHITE ? 0 : Board.BLACK_PAWN;
+
+        for (int piece = offset + Board.WHITE_KNIGHT; piece <= offset + Board.WHITE_KING; piece++) {
+            for (int i = 0; i < board.getPieceCount(piece); i++) {
+                int from = board.getPieceSquare(piece, i);
+                long attacks = switch (piece - offset) {
+                    case Board.WHITE_KNIGHT -> Attacks.knightAttacks(from);
+                    case Board.WHITE_BISHOP -> Attacks.bishopAttacks(from, occupied);
+                    case Board.WHITE_ROOK -> Attacks.rookAttacks(from, occupied);
+                    case Board.WHITE_QUEEN -> Attacks.queenAttacks(from, occupied);
+                    default -> Attacks.kingAttacks(from);
+                } & targets;
+
+                while (attacks != 0) {
+                    moves[count++] = Move.encode(from, Long.numberOfTrailingZeros(attacks), flags);
+                    attacks &= attacks - 1;
+                }
+            }
+        }
+        return count;
+    }
+
+    private static int generatePawnCaptures(Board board, int color, int[] moves, int count) {
+        int pawn = color == Board.WHITE ? Board.WHITE_PAWN : Board.BLACK_PAWN;
+        int forward = color == Board.WHITE ? 8 : -8;
+        long enemies = board.getOccupancy(color ^ 1);
+        long empty = ~board.getOccupancy(Board.BOTH);
+        int enPassant = board.getSideToMove() == color ? board.getEnPassantSquare() : Board.NO_SQUARE;
+
+        for (int i = 0; i < board.getPieceCount(pawn); i++) {
+            int from = board.getPieceSquare(pawn, i);
+            long captures = Attacks.pawnAttacks(color, from) & enemies;
+
+            while (captures != 0) {
+                int to = Long.numberOfTrailingZeros(captures);
+                captures &= captures - 1;
+                if (((1L << to) & PROMOTION_RANKS) != 0) {
+                    count = addPromotions(from, to, Move.CAPTURE, moves, count);
+                } else {
+                    moves[count++] = Move.encode(from, to, Move.CAPTURE);
+                }
+            }
+
+            // Quiet promotions change material too, so they are generated with the captures
+            // Shifts wrap around, so a pawn already on its last rank must not reach the other side
+            int push = from + forward;
+            if (push >= 0 && push < 64 && ((1L << push) & PROMOTION_RANKS & empty) != 0) {
+                count = addPromotions(from, push, 0, moves, count);
+            }
+
+            if (enPassant != Board.NO_SQUARE && (Attacks.pawnAttacks(color, from) & (1L << enPassant)) != 0) {
+                moves[count++] = Move.encode(from, enPassant, Move.EN_PASSANT);
+            }
+        }
+        return count;
+    }
+
+    private static int generatePawnPushes(Board board, int color, int[] moves, int count) {
+        long pawns = board.getBitboard(color == Board.WHITE ? Board.WHITE_PAWN : Board.BLACK_PAWN);
+        long empty = ~board.getOccupancy(Board.BOTH);
+        long singles;
+        long doubles;
+        int forward;
+
+        if (color == Board.WHITE) {
+            singles = (pawns << 8) & empty;
+            doubles = ((singles & RANK_3) << 8) & empty;
+            forward = 8;
+        } else {
+            singles = (pawns >>> 8) & empty;
+            doubles = ((singles & RANK_6) >>> 8) & empty;
+            forward = -8;
+        }
+        singles &= ~PROMOTION_RANKS;
+
+        while (singles != 0) {
+            int to = Long.numberOfTrailingZeros(singles);
+            moves[count++] = Move.encode(to - forward, to, Move.QUIET);
+            singles &= singles - 1;
+        }
+        while (doubles != 0) {
+            int to = Long.numberOfTrailingZeros(doubles);
+            moves[count++] = Move.encode(to - 2 * forward, to, Move.DOUBLE_PAWN_PUSH);
+            doubles &= doubles - 1;
+        }
+        return count;
+    }
+
+    private static int generateCastling(Board board, int color, int[] moves, int count) {
+        int king = color == Board.WHITE ? 4 : 60;
+        if (canCastle(board, color, true)) {
+            moves[count++] = Move.encode(king, king + 2, Move.KING_CASTLE);
+        }
+        if (canCastle(board, color, false)) {
+            moves[count++] = Move.encode(king, king - 2, Move.QUEEN_CASTLE);
+        }
+        return count;
+    }
+
+    // Castling needs the right, empty squares between king and rook and no attacked square on the king's path
+    private static boolean canCastle(Board board, int color, boolean kingside) {
+        int right = color == Board.WHITE
+                ? (kingside ? Board.WHITE_KINGSIDE : Board.WHITE_QUEENSIDE)
+                : (kingside ? Board.BLACK_KINGSIDE : Board.BLACK_QUEENSIDE);
+        int king = color == Board.WHITE ? 4 : 60;
+        if (board.getSideToMove() != color || (board.getCastlingRights() & right) == 0
+                || board.getKingSquare(color) != king) {
+            return false;
+        }
+
+        int step = kingside ? 1 : -1;
+        long between = Attacks.between(king, kingside ? king + 3 : king - 4);
+        int enemy = color ^ 1;
+        return (board.getOccupancy(Board.BOTH) & between) == 0
+                && !board.isSquareAttacked(king, enemy)
+                && !board.isSquareAttacked(king + step, enemy)
+                && !board.isSquareAttacked(king + 2 * step, enemy);
+    }
+
+    private static int addPromotions(int from, int to, int captureFlag, int[] moves, int count) {
+        moves[count++] = Move.encode(from, to, Move.QUEEN_PROMOTION | captureFlag);
+        moves[count++] = Move.encode(from, to, Move.KNIGHT_PROMOTION | captureFlag);
+        moves[count++] = Move.encode(from, to, Move.ROOK_PROMOTION | captureFlag);
+        moves[count++] = Move.encode(from, to, Move.BISHOP_PROMOTION | captureFlag);
+        return count;
+    }
+
+    // Legal moves of the side to move; one pass with pin and check masks, no trial moves
+    public static int generateLegal(Board board, int[] moves, int start) {
+        int color = board.getSideToMove();
+        long checkers = checkers(board, color);
+        long pinned = pinnedPieces(board, color);
+        int end = generateAll(board, color, moves, start);
+        int count = start;
+
+        for (int i = start; i < end; i++) {
+            if (isLegal(board, moves[i], pinned, checkers)) {
+                moves[count++] = moves[i];
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Whether the side to move has any legal move at all; decides mate and stalemate. King steps
+     * are tried first without generating anything, and usually answer. Otherwise the other
+     * moves are generated into the caller's buffer from start on, up to the first legal one.
+     */
+    public static boolean hasLegalMove(Board board, int[] moves, int start) {
+        int color = board.getSideToMove();
+        long checkers = checkers(board, color);
+        int king = board.getKingSquare(color);
+        if (king != Board.NO_SQUARE) {
+            long occupied = board.getOccupancy(Board.BOTH) ^ (1L << king);
+            for (long targets = Attacks.kingAttacks(king) & ~board.getOccupancy(color); targets != 0; targets &= targets - 1) {
+                if (board.attackersTo(Long.numberOfTrailingZeros(targets), color ^ 1, occupied) == 0) {
+                    return true;
+                }
+            }
+            // Double check leaves only king moves
+            if ((checkers & (checkers - 1)) != 0) {
+                return false;
+            }
+        }
+
+        long pinned = pinnedPieces(board, color);
+        int end = generateAll(board, color, moves, start);
+        for (int i = start; i < end; i++) {
+            if (isLegal(board, moves[i], pinned, checkers)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // Enemy pieces giving check to the king of the given color
+    public static long checkers(Board board, int color) {
+        int king = board.getKingSquare(color);
+        return king == Board.NO_SQUARE ? 0L : board.attackersTo(king, color ^ 1);
+    }
+
+    // Pieces of the given color that are the only blocker between their king and an enemy slider
+    public static long pinnedPieces(Board board, int color) {
+        int king = board.getKingSquare(color);
+        if (king == Board.NO_SQUARE) {
+            return 0L;
+        }
+
+        int offset = color == Board.WHITE ? Board.BLACK_PAWN : 0;
+        long enemies = board.getOccupancy(color ^ 1);
+        long occupied = board.getOccupancy(Board.BOTH);
+        long queens = board.getBitboard(offset + Board.WHITE_QUEEN);
+        long snipers = (Attacks.rookAttacks(king, enemies) & (board.getBitboard(offset + Board.WHITE_ROOK) | queens))
+                | (Attacks.bishopAttacks(king, enemies) & (board.getBitboard(offset + Board.WHITE_BISHOP) | queens));
+
+        long pinned = 0L;
+        while (snipers != 0) {
+            long blockers = Attacks.between(king, Long.numberOfTrailingZeros(snipers)) & occupied;
+            if (blockers != 0 && (blockers & (blockers - 1)) == 0) {
+                pinned |= blockers & board.getOccupancy(color);
+            }
+            snipers &= snipers - 1;
+        }
+        return pinned;
+    }
+
+    /**
+     * Whether a pseudo-legal move of the side to move leaves its own king safe, given the
+     * pinned pieces and checkers of the position. Only king moves and en passant need an
+     * attack query; every other move is decided by the pin ray and check-evasion masks.
+     */
+    public static boolean isLegal(Board board, int move, long pinned, long checkers) {
+        int color = board.getSideToMove();
+        int king = board.getKingSquare(color);
+        if (king == Board.NO_SQUARE) {
+            return true;
+        }
+
+        int from = Move.from(move);
+        int to = Move.to(move);
+        int flags = Move.flags(move);
+        long occupied = board.getOccupancy(Board.BOTH);
+
+        if (from == king) {
+            // Castling already checked the king's path; other king moves must land on a safe square
+            if (flags == Move.KING_CASTLE || flags == Move.QUEEN_CASTLE) {
+                return true;
+            }
+            return board.attackersTo(to, color ^ 1, occupied ^ (1L << from)) == 0;
+        }
+
+        if (flags == Move.EN_PASSANT) {
+            // Two pieces leave the king's rank or diagonal at once, so look at the resulting position
+            int captured = to ^ 8;
+            long after = (occupied ^ (1L << from) ^ (1L << captured)) | (1L << to);
+            return (board.attackersTo(king, color ^ 1, after) & ~(1L << captured)) == 0;
+        }
+
+        if (checkers != 0) {
+            // Double check leaves only king moves; a single check must be captured or blocked
+            if ((checkers & (checkers - 1)) != 0) {
+                return false;
+            }
+            long evasions = checkers | Attacks.between(king, Long.numberOfTrailingZeros(checkers));
+            if ((evasions & (1L << to)) == 0) {
+                return false;
+            }
+        }
+
+        return (pinned & (1L << from)) == 0 || (Attacks.line(king, from) & (1L << to)) != 0;
+    }
+
+    // Convenience form for a single move; computes the masks itself
+    public static boolean isLegal(Board board, int move) {
+        int color = board.getSideToMove();
+        return isLegal(board, move, pinnedPieces(board, color), checkers(board, color));
+    }
+}
@@ -0,0 +1,111 @@
+package chess.logic;
+
+/**
+ * Counts the leaf nodes of the legal move tree to check the move generator against
+ * known reference counts. Divide prints the count below every root move, which narrows
+ * a mismatch down to a single move.
+ */
+public class Perft {
+    private static final int MAX_DEPTH = 64;
+
+    // Standard reference positions: FEN, depth, expected node count
+    private static final String[][] REFERENCE_POSITIONS = {
+            {"rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w KQkq - 0 1", "5", "4865609"},
+            {"r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq - 0 1", "4", "4085603"},
+            {"8/2p5/3p4/KP5r/1R3p1k/8/4P1P1/8 w - - 0 1", "6", "11030083"},
+            {"r3k2r/Pppp1ppp/1b3nbN/nP6/BBP1P3/q4N2/Pp1P2PP/R2Q1RK1 w kq - 0 1", "5", "15833292"},
+            {"rnbq1k1r/pp1Pbppp/2p5/8/2B5/8/PPP1NnPP/RNBQK2R w KQ - 1 8", "4", "2103487"},
+            {"r4rk1/1pp1qppp/p1np1n2/2b1p1B1/2B1P1b1/P1NP1N2/1PP1QPPP/R4RK1 w - - 0 10", "4", "3894594"}
+    };
+
+    // One move buffer per ply so counting does not allocate
+    private final int[][] moveBuffers = new int[MAX_DEPTH][MoveGenerator.MAX_MOVES];
+
+    public long perft(Board board, int depth) {
+        return perft(board, depth, 0);
+    }
+
+    private long perft(Board board, int depth, int ply) {
+        if (depth == 0) {
+            return 1;
+        }
+
+        int[] moves = moveBuffers[ply];
+        int count = MoveGenerator.generateLegal(board, moves, 0);
+
+        // Bulk counting: the leaves are exactly the legal moves of the last ply
+        if (depth == 1) {
+            return count;
+        }
+
+        long nodes = 0;
+        for (int i = 0; i < count; i++) {
+            board.makeMove(moves[i]);
+            nodes += perft(board, depth - 1, ply + 1);
+            board.unmakeMove();
+        }
+        return nodes;
+    }
+
+    // Prints the node count below every root move and returns the total
+    public long divide(Board board, int depth) {
+        int[] moves = new int[MoveGenerator.MAX_MOVES];
+        int count = MoveGenerator.generateLegal(board, moves, 0);
+
+        long total = 0;
+        for (int i = 0; i < count; i++) {
+            board.makeMove(moves[i]);
+            long nodes = depth > 1 ? perft(board, depth - 1, 1) : 1;
+            board.unmakeMove();
+
+            System.out.println(Move.toString(moves[i]) + ": " + nodes);
+            total += nodes;
+        }
+        System.out.println("Total: " + total);
+        return total;
+    }
+
+    /**
+     * Without arguments runs the reference positions and reports nodes per second.
+     * "perft <depth> <fen>" counts a single position, "divide <depth> <fen>" splits it by root move.
+     */
+    public static void main(String[] args) {
+        Perft perft = new Perft();
+
+        if (args.length >= 3) {
+            int depth = Integer.parseInt(args[1]);
+            StringBuilder fen = new StringBuilder(args[2]);
+            for (int i = 3; i < args.length; i++) {
+                fen.append(' ').append(args[i]);
+            }
+            Board board = new Board(fen.toString());
+
+            if (args[0].equals("divide")) {
+                perft.divide(board, depth);
+            } else {
+                System.out.println("Nodes: " + perft.perft(board, depth));
+            }
+            return;
+        }
+
+        boolean allPassed = true;
+        for (String[] position : REFERENCE_POSITIONS) {
+            Board board = new Board(position[0]);
+            int depth = Integer.parseInt(position[1]);
+            long expected = Long.parseLong(position[2]);
+
+            long start = System.nanoTime();
+            long nodes = perft.perft(board, depth);
+            long elapsed = Math.max(1, System.nanoTime() - start);
+
+            boolean passed = nodes == expected;
+            allPassed &= passed;
+            System.out.printf("%s depth %d: %d nodes (expected %d) %s, %.0f nodes/s%n",
+                    position[0], depth, nodes, expected, passed ? "OK" : "FAILED", nodes * 1e9 / elapsed);
+        }
+
+        if (!allPassed) {
+            System.exit(1);
+        }
+    }
+}
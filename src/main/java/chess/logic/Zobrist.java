@@ -0,0 +1,44 @@
+package chess.logic;
+
+/**
+ * Random keys for Zobrist hashing. A position key is the XOR of the keys of
+ * every piece on its square plus the side to move, castling rights and
+ * en-passant file, so changing any one of them is a single XOR.
+ * The keys come from a fixed seed so they are stable between runs and can be
+ * stored alongside positions.
+ */
+public final class Zobrist {
+    public static final long[][] PIECE_SQUARE = new long[12][64];
+    public static final long[] CASTLING = new long[16];
+    public static final long[] EN_PASSANT_FILE = new long[8];
+    public static final long SIDE_TO_MOVE;
+
+    private static long seed = 0x2545F4914F6CDD1DL;
+
+    static {
+        for (int piece = 0; piece < 12; piece++) {
+            for (int square = 0; square < 64; square++) {
+                PIECE_SQUARE[piece][square] = nextRandom();
+            }
+        }
+        // Castling keys are indexed by the 4-bit rights mask; no rights hashes to 0
+        for (int rights = 1; rights < 16; rights++) {
+            CASTLING[rights] = nextRandom();
+        }
+        for (int file = 0; file < 8; file++) {
+            EN_PASSANT_FILE[file] = nextRandom();
+        }
+        SIDE_TO_MOVE = nextRandom();
+    }
+
+    private Zobrist() {
+    }
+
+    // SplitMix64
+    private static long nextRandom() {
+        long z = (seed += 0x9E3779B97F4A7C15L);
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+}